@@ -0,0 +1,113 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Define access to the REST data snapshots checked in under fixtures/, and synthetic orders built from them
+final class Fixtures {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+
+    // The day the order snapshot was taken, a Friday
+    static final LocalDate ORDER_DATE = LocalDate.of(2023, 9, 1);
+
+    private Fixtures() {
+    }
+
+    // Get the restaurants snapshot
+    static Restaurant[] restaurants() {
+        return read("restaurants.json", Restaurant[].class);
+    }
+
+    // Get the no-fly zones snapshot
+    static NamedRegion[] noFlyZones() {
+        return read("noFlyZones.json", NamedRegion[].class);
+    }
+
+    // Get the central area snapshot
+    static NamedRegion centralArea() {
+        return read("centralArea.json", NamedRegion[].class)[0];
+    }
+
+    // Get the orders snapshot for ORDER_DATE
+    static Order[] orders() {
+        return read("orders-" + ORDER_DATE + ".json", Order[].class);
+    }
+
+    // Find a restaurant in the snapshot by name
+    static Restaurant restaurant(String name) {
+        for (Restaurant restaurant : restaurants()) {
+            if (restaurant.name().equals(name)) {
+                return restaurant;
+            }
+        }
+        throw new IllegalArgumentException("No restaurant named " + name + " in the fixtures.");
+    }
+
+    // Build a reproducible set of orders on ORDER_DATE: three quarters are valid, and each of the rest breaks exactly one rule
+    static Order[] syntheticOrders(Restaurant[] restaurants, int count, long seed) {
+        List<Restaurant> open = new ArrayList<>();
+        List<Restaurant> closed = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            (Arrays.asList(restaurant.openingDays()).contains(ORDER_DATE.getDayOfWeek()) ? open : closed).add(restaurant);
+        }
+        Random random = new Random(seed);
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            // Faults 0 to 7 each make the order invalid in a different way; anything higher leaves it valid
+            int fault = random.nextInt(32);
+            List<Restaurant> candidates = fault == 6 && !closed.isEmpty() ? closed : open;
+            Restaurant restaurant = candidates.get(random.nextInt(candidates.size()));
+            Pizza[] pizzas = new Pizza[fault == 4 ? SystemConstants.MAX_PIZZAS_PER_ORDER + 1 : 1 + random.nextInt(3)];
+            for (int j = 0; j < pizzas.length; j++) {
+                pizzas[j] = restaurant.menu()[random.nextInt(restaurant.menu().length)];
+            }
+            if (fault == 5) {
+                pizzas[0] = new Pizza("Pizza-Surprise", 1500);
+            } else if (fault == 7) {
+                Restaurant other = restaurants[(Arrays.asList(restaurants).indexOf(restaurant) + 1) % restaurants.length];
+                pizzas[0] = other.menu()[0];
+            }
+            int total = SystemConstants.ORDER_CHARGE_IN_PENCE;
+            for (Pizza pizza : pizzas) {
+                total += pizza.priceInPence();
+            }
+            CreditCardInformation card = new CreditCardInformation(fault == 0 ? "4111111111111112" : "4111111111111111",
+                    fault == 2 ? "08/23" : "12/28", fault == 1 ? "12" : "123");
+            orders[i] = new Order(String.format("%08X", i), ORDER_DATE, OrderStatus.UNDEFINED, OrderValidationCode.UNDEFINED,
+                    fault == 3 ? total + 50 : total, pizzas, card);
+        }
+        return orders;
+    }
+
+    // Read a fixture from the classpath
+    private static <T> T read(String name, Class<T> type) {
+        try (InputStream input = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing fixture " + name + ".");
+            }
+            return OBJECT_MAPPER.readValue(input, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark the geometry primitives on points spread over the fixture zones and the area around them
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+    private static final int POINT_COUNT = 1024;
+
+    private final LongitudeAndLatitudeHandler handler = new LongitudeAndLatitudeHandler();
+    private NamedRegion[] noFlyZones;
+    private RegionIndex regionIndex;
+    private LngLat[] points;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        noFlyZones = Fixtures.noFlyZones();
+        regionIndex = new RegionIndex(noFlyZones, Fixtures.centralArea());
+        // Sample points from a box slightly larger than the central area, so some fall inside zones and most do not
+        Random random = new Random(42);
+        points = new LngLat[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            points[i] = new LngLat(-3.195 + random.nextDouble() * 0.014, 55.941 + random.nextDouble() * 0.007);
+        }
+    }
+
+    // Get the next sample point, cycling through the samples
+    private LngLat nextPoint() {
+        next = (next + 1) & (POINT_COUNT - 1);
+        return points[next];
+    }
+
+    @Benchmark
+    public int checkInsideAllZones() {
+        LngLat point = nextPoint();
+        int inside = 0;
+        for (NamedRegion zone : noFlyZones) {
+            inside += LineUtilities.checkInside(zone.vertices(), zone.vertices().length, point);
+        }
+        return inside;
+    }
+
+    @Benchmark
+    public boolean regionIndexIsInNoFlyZone() {
+        return regionIndex.isInNoFlyZone(nextPoint());
+    }
+
+    @Benchmark
+    public LngLat nextPosition() {
+        return handler.nextPosition(nextPoint(), (next & 15) * 22.5);
+    }
+
+    @Benchmark
+    public double distanceTo() {
+        return handler.distanceTo(nextPoint(), points[(next + 1) & (POINT_COUNT - 1)]);
+    }
+}
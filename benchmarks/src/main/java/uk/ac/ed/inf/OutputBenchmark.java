@@ -0,0 +1,90 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark the JSON writers in App against the streaming writers in OutputWriter, on a day of synthetic orders
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputBenchmark {
+    @Param({"100", "1000"})
+    public int orderCount;
+
+    private Order[] orders;
+    private List<Movement> flightPath;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        Restaurant[] restaurants = Fixtures.restaurants();
+        orders = Fixtures.syntheticOrders(restaurants, orderCount, 42);
+        ValidateOrder orderValidator = new ValidateOrder(restaurants);
+        List<Order> validOrders = orderValidator.validateAll(orders, restaurants).validOrders();
+        PathManager pathManager = new PathManager(Fixtures.noFlyZones(), Fixtures.centralArea(), restaurants, validOrders);
+        pathManager.setOrderValidator(orderValidator);
+        flightPath = pathManager.determineRoutes();
+        directory = Files.createTempDirectory("output-benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public String deliveryJson() {
+        return App.deliveryJson(orders);
+    }
+
+    @Benchmark
+    public String flightpathJson() {
+        return App.flightpathJson(flightPath);
+    }
+
+    @Benchmark
+    public String geoJson() {
+        return App.geoJson(flightPath);
+    }
+
+    @Benchmark
+    public void writeDeliveries() throws IOException {
+        OutputWriter.writeDeliveries(orders, directory.resolve("deliveries.json"));
+    }
+
+    @Benchmark
+    public void writeFlightpath() throws IOException {
+        OutputWriter.writeFlightpath(flightPath, directory.resolve("flightpath.json"));
+    }
+
+    @Benchmark
+    public void writeGeoJson() throws IOException {
+        OutputWriter.writeGeoJson(flightPath, directory.resolve("drone.geojson"));
+    }
+}
@@ -0,0 +1,47 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark calculating the path from the delivery point to each restaurant in the fixtures, with every planner
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPlanningBenchmark {
+    @Param({"Civerinos Slice", "Sora Lella Vegan Restaurant", "Domino's Pizza - Central", "Sodeberg Pavillion",
+            "La Trattoria", "Halal Pizza", "World of Pizza"})
+    public String restaurant;
+
+    @Param({"GREEDY", "ASTAR"})
+    public PlannerMode planner;
+
+    private PathEngine pathEngine;
+    private LngLat restaurantLocation;
+
+    @Setup
+    public void setUp() {
+        pathEngine = planner.createEngine(new RegionIndex(Fixtures.noFlyZones(), Fixtures.centralArea()));
+        restaurantLocation = Fixtures.restaurant(restaurant).location();
+    }
+
+    @Benchmark
+    public List<Movement> calculatePath() {
+        return pathEngine.calculatePath(PathManager.DELIVERY_POINT, restaurantLocation, null, new SearchStatistics());
+    }
+}
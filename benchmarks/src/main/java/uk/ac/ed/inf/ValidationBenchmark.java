@@ -0,0 +1,57 @@
+package uk.ac.ed.inf;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.util.concurrent.TimeUnit;
+
+// Benchmark validating synthetic order sets one order at a time and in parallel chunks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    @Param({"1000", "100000"})
+    public int orderCount;
+
+    private Restaurant[] restaurants;
+    private Order[] orders;
+    private ValidateOrder orderValidator;
+
+    @Setup
+    public void setUp() {
+        restaurants = Fixtures.restaurants();
+        orders = Fixtures.syntheticOrders(restaurants, orderCount, 42);
+        orderValidator = new ValidateOrder(restaurants);
+    }
+
+    @Benchmark
+    public int validateOrder() {
+        int valid = 0;
+        for (Order order : orders) {
+            if (orderValidator.validateOrder(order, restaurants).getOrderStatus() != OrderStatus.INVALID) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public ValidateOrder.ValidationSummary validateAll() {
+        return orderValidator.validateAll(orders, restaurants);
+    }
+}
@@ -0,0 +1,100 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.*;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_IS_CLOSE_DISTANCE;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Define a path engine that runs an A* search over the 16-direction move lattice
+public class AStarPathEngine implements PathEngine {
+    // Positions closer than this are treated as the same lattice node by the closed set
+    static final double SNAP_DISTANCE = DRONE_MOVE_DISTANCE / 2;
+    // Upper bound on node expansions before the search gives up
+    static final int MAX_EXPANSIONS = 2_000_000;
+
+    private final RegionIndex regionIndex;
+
+    // A search node holding its position, cost so far, estimated total cost and the move that reached it
+    private record Node(double lng, double lat, double costSoFar, double estimatedCost, int angleIndex, Node parent, boolean inCentralArea) {
+    }
+
+    // Constructor to initialize the engine with the indexed regions it has to respect
+    public AStarPathEngine(RegionIndex regionIndex) {
+        this.regionIndex = regionIndex;
+    }
+
+    // Calculate the shortest lattice path from one location to another using distanceTo as the heuristic
+    @Override
+    public List<Movement> calculatePath(LngLat location1, LngLat location2, String orderNumber, SearchStatistics statistics) {
+        // Order the open set by estimated total cost, preferring deeper nodes on ties
+        PriorityQueue<Node> openSet = new PriorityQueue<>((a, b) -> {
+            int comparison = Double.compare(a.estimatedCost(), b.estimatedCost());
+            return comparison != 0 ? comparison : Double.compare(b.costSoFar(), a.costSoFar());
+        });
+        VisitedPositionSet closedSet = new VisitedPositionSet(SNAP_DISTANCE);
+        double targetLng = location2.lng();
+        double targetLat = location2.lat();
+
+        openSet.add(new Node(location1.lng(), location1.lat(), 0, GeometryKernel.distance(location1.lng(), location1.lat(), targetLng, targetLat),
+                -1, null, regionIndex.isInCentralArea(location1)));
+        int expansions = 0;
+
+        while (!openSet.isEmpty()) {
+            Node current = openSet.poll();
+            // Skip stale entries for nodes that were already expanded through a cheaper route
+            if (!closedSet.add(current.lng(), current.lat())) {
+                continue;
+            }
+            if (GeometryKernel.distance(current.lng(), current.lat(), targetLng, targetLat) < DRONE_IS_CLOSE_DISTANCE) {
+                statistics.recordVisitedSet(closedSet);
+                return buildPath(location1, current, orderNumber);
+            }
+            if (++expansions > MAX_EXPANSIONS) {
+                break;
+            }
+            statistics.recordNodeExpanded();
+
+            for (int angleIndex = 0; angleIndex < GeometryKernel.DIRECTIONS; angleIndex++) {
+                double nextLng = GeometryKernel.nextLng(current.lng(), angleIndex);
+                double nextLat = GeometryKernel.nextLat(current.lat(), angleIndex);
+                if (closedSet.contains(nextLng, nextLat)) {
+                    continue;
+                }
+                // Once the drone has left the central area it may not enter it again
+                boolean isNextPositionInCentralArea = regionIndex.isInCentralArea(nextLng, nextLat);
+                if (!current.inCentralArea() && isNextPositionInCentralArea) {
+                    continue;
+                }
+                // Reject moves that end in or cut across the corner of a no-fly zone
+                if (regionIndex.crossesNoFlyZone(current.lng(), current.lat(), nextLng, nextLat, statistics)) {
+                    continue;
+                }
+                double costSoFar = current.costSoFar() + DRONE_MOVE_DISTANCE;
+                openSet.add(new Node(nextLng, nextLat, costSoFar, costSoFar + GeometryKernel.distance(nextLng, nextLat, targetLng, targetLat),
+                        angleIndex, current, isNextPositionInCentralArea));
+            }
+        }
+        statistics.recordVisitedSet(closedSet);
+        throw new IllegalStateException("No path could be found from " + location1 + " to " + location2 + ".");
+    }
+
+    // Walk back from the goal node to the start, turning each step into a movement and finishing with a hover
+    private static List<Movement> buildPath(LngLat start, Node goal, String orderNumber) {
+        List<Node> nodes = new ArrayList<>();
+        for (Node node = goal; node.parent() != null; node = node.parent()) {
+            nodes.add(node);
+        }
+        Collections.reverse(nodes);
+        List<Movement> path = new ArrayList<>();
+        LngLat position = start;
+        for (Node node : nodes) {
+            LngLat nextPosition = new LngLat(node.lng(), node.lat());
+            path.add(new Movement(position, node.angleIndex() * GeometryKernel.ANGLE_STEP, nextPosition, orderNumber));
+            position = nextPosition;
+        }
+        path.add(new Movement(position, 999, position, orderNumber));
+        return path;
+    }
+}
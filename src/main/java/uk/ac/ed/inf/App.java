@@ -1,29 +1,62 @@
 package uk.ac.ed.inf;
 
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.io.FileWriter;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import uk.ac.ed.inf.ilp.data.NamedRegion;
 import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
 import uk.ac.ed.inf.ilp.data.Order;
 import uk.ac.ed.inf.ilp.data.Restaurant;
 
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MAX_MOVES;
+
 public class App {
+    // Time spent in each stage of a day's run, written to the metrics file so a slow run can be traced to its stage
+    private static final Metrics.Histogram FETCH_NANOS = Metrics.global().histogram("stage.fetch.nanos");
+    private static final Metrics.Histogram VALIDATION_NANOS = Metrics.global().histogram("stage.validation.nanos");
+    private static final Metrics.Histogram PLANNING_NANOS = Metrics.global().histogram("stage.planning.nanos");
+    private static final Metrics.Histogram ROUTE_CHECK_NANOS = Metrics.global().histogram("stage.routeCheck.nanos");
+    private static final Metrics.Histogram OUTPUT_NANOS = Metrics.global().histogram("stage.output.nanos");
+    private static final Metrics.Histogram SCHEDULING_NANOS = Metrics.global().histogram("stage.scheduling.nanos");
+    private static final Metrics.Histogram REPLANNING_NANOS = Metrics.global().histogram("stage.replanning.nanos");
+    // Port the planning service listens on when none is given
+    private static final int DEFAULT_SERVICE_PORT = 8080;
+
     public static void main(String[] args) throws IOException, InterruptedException {
         // Capture the start time for performance metrics
         long StartTime = System.currentTimeMillis();
-        // Verify that exactly two arguments are passed to the program, else throw an exception
+        // Expose the run's metrics through JMX when -Dmetrics.jmx=true
+        if (Boolean.getBoolean("metrics.jmx")) {
+            Metrics.global().registerMBean();
+        }
+        // Run as a resident planning service when started as "serve URL [port]"
+        if (args.length >= 2 && args[0].equals("serve")) {
+            runService(args[1], args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SERVICE_PORT);
+            return;
+        }
+        // Verify that two arguments (date, URL) or three arguments (start date, end date, URL) are passed, else throw an exception
 
-        if (args.length != 2) {
+        if (args.length != 2 && args.length != 3) {
             throw new IllegalArgumentException("Argument count error: The argument count is not as expected.");
         }
+        if (args.length == 3) {
+            runBatch(args[0], args[1], args[2]);
+            long EndTime = System.currentTimeMillis();
+            System.out.println("Time Elapsed : " + ((double) (EndTime - StartTime) / 1000) + " seconds");
+            return;
+        }
         // Capture the date and URL from the arguments passed
         String date = args[0];
         String URL = args[1];
@@ -33,76 +66,351 @@ public class App {
         System.out.println("Entered URL : " + URL + "\n");
 
         // Verify the date format and URL format, throwing exceptions if invalid
-        if (!date.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            throw new IllegalArgumentException("Improper date format: Ensure the date is in the YYYY-MM-DD format.");
-        } else if (!URL.matches("https://ilp-rest.azurewebsites.net")) {
-            throw new IllegalArgumentException("Invalid URL: The URL should match https://ilp-rest.azurewebsites.net.");
+        checkArguments(URL, date);
+        // Check that the service is alive and fetch the necessary data from it, with all requests sent at the same time
+        System.out.println("Collecting data from the REST service... ");
+        long stageStart = System.nanoTime();
+        RestDataSource.RestData restData = openDataSource(URL).fetchAll(date);
+        FETCH_NANOS.recordNanosSince(stageStart);
+        Restaurant[] restaurants = restData.restaurants();
+        Order[] orders = restData.orders();
+        NamedRegion[] noFlyZones = restData.noFlyZones();
+        NamedRegion centralArea = restData.centralArea();
+
+        System.out.println("Data has been successfully obtained from the service.\n");
+        // Validate the orders and prepare a list of valid orders
+        stageStart = System.nanoTime();
+        ValidateOrder orderValidator = new ValidateOrder(restaurants);
+        List<Order> validOrderList = validOrders(orders, restaurants, orderValidator);
+        VALIDATION_NANOS.recordNanosSince(stageStart);
+
+        System.out.println("Evaluating navigation paths for delivery drones...");
+
+        // Determine routes for delivery drones using path management
+        PathManager pathManager = createPathManager(noFlyZones, centralArea, restaurants, validOrderList);
+        pathManager.setOrderValidator(orderValidator);
+        // Reuse paths planned by earlier runs while the no-fly zones and central area are unchanged, if a route store is given
+        RouteStore routeStore = openRouteStore(noFlyZones, centralArea);
+        pathManager.setRouteStore(routeStore);
+        stageStart = System.nanoTime();
+        FlightPath paths = pathManager.determineRoutes();
+        PLANNING_NANOS.recordNanosSince(stageStart);
+        if (routeStore != null) {
+            routeStore.save();
+            System.out.println("Route store held " + routeStore.getLoadedCount() + " paths from earlier runs and now holds " + routeStore.size() + ".");
         }
-        // Check if the service at the URL is alive, throwing an exception if not
-        String isActive = API.checkIsAlive(URL);
-        if (!isActive.equals("true")) {
-            throw new IllegalArgumentException("Unresponsive service: The service is not alive and responsive.");
+        System.out.println("Planner " + pathManager.getPlannerMode() + " calculated " + pathManager.getRoutesPlanned() + " routes in "
+                + ((double) pathManager.getPlanningNanos() / 1_000_000) + " ms, totalling " + paths.size() + " moves.");
+        printRouteCacheStatistics(pathManager.getRouteCache());
+        if (pathManager.getBatchCapacity() > 0) {
+            System.out.println("Batched " + validOrderList.size() + " orders into " + paths.getLegs().size() + " trips of up to "
+                    + pathManager.getBatchCapacity() + " pizzas.");
+        }
+        SearchStatistics statistics = pathManager.getPlannedStatistics();
+        System.out.println("Searches: " + statistics.getNodesExpanded() + " nodes expanded, " + statistics.getVisitedProbes()
+                + " visited-set probes, " + statistics.getVisitedHits() + " hits, " + statistics.getMoveChecks() + " move checks, "
+                + statistics.getPolygonTests() + " polygon tests");
+        System.out.println();
+
+        // Re-check the complete flight path against the flight rules before writing it out
+        stageStart = System.nanoTime();
+        List<RouteValidator.Violation> violations = new RouteValidator(pathManager.getRegionIndex()).validate(paths);
+        ROUTE_CHECK_NANOS.recordNanosSince(stageStart);
+        for (RouteValidator.Violation violation : violations) {
+            System.out.println("Route violation at move " + violation.moveIndex() + " (order " + violation.orderNumber() + "): " + violation.reason());
+        }
+
+        writeDayFiles(date, orders, paths);
+        writeMetrics(date);
+        System.out.println();
+
+        // Calculate and print the elapsed time of the program execution
+        long EndTime = System.currentTimeMillis();
+        System.out.println("Time Elapsed : " + ((double) (EndTime - StartTime) / 1000) + " seconds");
+    }
+
+    // Method to start the planning service on a port, handling requests on -Dservice.threads threads with the planner from -Dplanner
+    // It keeps running, with warm caches, until the process is stopped
+    private static void runService(String URL, int port) throws IOException, InterruptedException {
+        System.out.println("Entered URL : " + URL + "\n");
+        checkURL(URL);
+        int threads = Integer.getInteger("service.threads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+        PlanningService service = new PlanningService(openDataSource(URL), port, threads, PlannerMode.fromName(System.getProperty("planner", "greedy")));
+        service.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        System.out.println("Planning service listening on port " + service.getPort() + " with " + threads + " threads.");
+        System.out.println("  POST /validate, GET /route?restaurant=name, GET /deliveries/YYYY-MM-DD, /flightpath/YYYY-MM-DD, /geojson/YYYY-MM-DD, /metrics");
+    }
+
+    // Method to plan and write every day from the start date to the end date, inclusive, in one run
+    // The static data is fetched once, the orders of all days are requested together, and one route cache serves every day
+    private static void runBatch(String startDate, String endDate, String URL) throws IOException, InterruptedException {
+        System.out.println("Entered Dates : " + startDate + " to " + endDate);
+        System.out.println("Entered URL : " + URL + "\n");
+        checkDate(startDate);
+        checkDate(endDate);
+        checkURL(URL);
+        LocalDate firstDay = LocalDate.parse(startDate);
+        LocalDate lastDay = LocalDate.parse(endDate);
+        if (lastDay.isBefore(firstDay)) {
+            throw new IllegalArgumentException("Improper date range: The end date must not be before the start date.");
         }
 
         System.out.println("Collecting data from the REST service... ");
-        // Fetch the necessary data from the REST service using the API class
-        Restaurant[] restaurants = API.getRestaurants(URL);
-        Order[] orders = API.getOrders(URL, date);
-        NamedRegion[] noFlyZones = API.getNoFlyZones(URL);
-        NamedRegion centralArea = API.getCentralArea(URL);
+        long fetchStart = System.nanoTime();
+        RestDataSource dataSource = openDataSource(URL);
+        CompletableFuture<String> isActive = dataSource.isAlive();
+        CompletableFuture<Restaurant[]> restaurantsRequest = dataSource.getRestaurants();
+        CompletableFuture<NamedRegion[]> noFlyZonesRequest = dataSource.getNoFlyZones();
+        CompletableFuture<NamedRegion> centralAreaRequest = dataSource.getCentralArea();
+        Map<LocalDate, CompletableFuture<Order[]>> ordersRequests = new LinkedHashMap<>();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            ordersRequests.put(day, dataSource.getOrders(day.toString()));
+        }
+        if (!RestClient.await(isActive).equals("true")) {
+            throw new IllegalArgumentException("Unresponsive service: The service is not alive and responsive.");
+        }
+        Restaurant[] restaurants = RestClient.await(restaurantsRequest);
+        NamedRegion[] noFlyZones = RestClient.await(noFlyZonesRequest);
+        NamedRegion centralArea = RestClient.await(centralAreaRequest);
+        FETCH_NANOS.recordNanosSince(fetchStart);
 
-        System.out.println("Data has been successfully obtained from the service.\n");
-        // Validate the orders and prepare a list of valid orders
-        ValidateOrder orderValidator = new ValidateOrder();
-        List<Order> validOrderList = new ArrayList<>();
-        for (Order order : orders) {
-            if (orderValidator.validateOrder(order, restaurants).getOrderStatus() != OrderStatus.INVALID) {
-                validOrderList.add(order);
+        ValidateOrder orderValidator = new ValidateOrder(restaurants);
+        PathManager pathManager = createPathManager(noFlyZones, centralArea, restaurants, List.of());
+        pathManager.setOrderValidator(orderValidator);
+        pathManager.setRouteStore(openRouteStore(noFlyZones, centralArea));
+        RouteValidator routeValidator = new RouteValidator(pathManager.getRegionIndex());
+        // With -Dzones.refresh=true the no-fly zones are fetched again before each later day and only the affected routes are re-planned
+        boolean refreshZones = Boolean.getBoolean("zones.refresh");
+
+        // Plan and write each day as soon as its orders arrive, while the later days are still being fetched
+        long batchStart = System.nanoTime();
+        int totalOrders = 0;
+        long totalMoves = 0;
+        for (Map.Entry<LocalDate, CompletableFuture<Order[]>> request : ordersRequests.entrySet()) {
+            long dayStart = System.nanoTime();
+            String date = request.getKey().toString();
+            if (refreshZones && !request.getKey().equals(firstDay)) {
+                PathManager.ZoneUpdate update = pathManager.updateNoFlyZones(RestClient.await(dataSource.getNoFlyZones()));
+                REPLANNING_NANOS.record(update.nanos());
+                if (update.changedZones() > 0 || update.removedZones() > 0) {
+                    routeValidator = new RouteValidator(pathManager.getRegionIndex());
+                    System.out.println("No-fly zones changed: " + update.changedZones() + " added or changed, " + update.removedZones() + " removed; re-planned "
+                            + update.routesReplanned() + " of " + update.routesChecked() + " nearby routes in " + ((double) update.nanos() / 1_000_000) + " ms");
+                }
             }
+            long stageStart = System.nanoTime();
+            Order[] orders = RestClient.await(request.getValue());
+            FETCH_NANOS.recordNanosSince(stageStart);
+            stageStart = System.nanoTime();
+            List<Order> validOrderList = validOrders(orders, restaurants, orderValidator);
+            VALIDATION_NANOS.recordNanosSince(stageStart);
+            int routesPlannedBefore = pathManager.getRoutesPlanned();
+            stageStart = System.nanoTime();
+            FlightPath paths = pathManager.determineRoutes(validOrderList);
+            PLANNING_NANOS.recordNanosSince(stageStart);
+            stageStart = System.nanoTime();
+            int violationCount = routeValidator.validate(paths).size();
+            ROUTE_CHECK_NANOS.recordNanosSince(stageStart);
+            writeDayFiles(date, orders, paths);
+            // Each day's metrics file covers everything since the previous one, so the first also holds the shared fetch
+            writeMetrics(date);
+            Metrics.global().reset();
+            double dayMillis = (double) (System.nanoTime() - dayStart) / 1_000_000;
+            System.out.println(date + " : " + orders.length + " orders, " + validOrderList.size() + " valid, " + paths.getLegs().size() + " trips, " + paths.size() + " moves, "
+                    + (pathManager.getRoutesPlanned() - routesPlannedBefore) + " new routes, " + violationCount + " route violations, "
+                    + dayMillis + " ms\n");
+            totalOrders += orders.length;
+            totalMoves += paths.size();
+        }
+        // A zone change switches the path manager to a store for the new zones, so save the one it holds now
+        RouteStore routeStore = pathManager.getRouteStore();
+        if (routeStore != null) {
+            routeStore.save();
         }
 
-        System.out.println("Evaluating navigation paths for delivery drones...");
+        double batchSeconds = (double) (System.nanoTime() - batchStart) / 1_000_000_000;
+        System.out.println("Processed " + ordersRequests.size() + " days, " + totalOrders + " orders and " + totalMoves + " moves in "
+                + batchSeconds + " seconds (" + (totalOrders / batchSeconds) + " orders per second, "
+                + (ordersRequests.size() / batchSeconds) + " days per second).");
+        System.out.println("Planner " + pathManager.getPlannerMode() + " calculated " + pathManager.getRoutesPlanned() + " routes in " + ((double) pathManager.getPlanningNanos() / 1_000_000)
+                + " ms" + (routeStore == null ? "." : "; the route store now holds " + routeStore.size() + "."));
+        printRouteCacheStatistics(pathManager.getRouteCache());
+    }
 
-        // Determine routes for delivery drones using path management
-        PathManager pathManager = new PathManager(noFlyZones, centralArea, restaurants, validOrderList);
-        List<Movement> paths = pathManager.determineRoutes();
+    // Method to print how well the route cache served the run and how full it is
+    private static void printRouteCacheStatistics(RouteCache routeCache) {
+        System.out.println("Route cache: " + routeCache.getHits() + " hits, " + routeCache.getMisses() + " misses, " + routeCache.getEvictions()
+                + " evictions; holds " + routeCache.size() + " of " + routeCache.getMaxRoutes() + " routes and " + routeCache.getMoveCount()
+                + " of " + routeCache.getMaxMoves() + " moves.");
+    }
+
+    // Method to verify the date format and URL format, throwing exceptions if invalid
+    private static void checkArguments(String URL, String date) {
+        checkDate(date);
+        checkURL(URL);
+    }
+
+    // Method to verify the date format, throwing an exception if invalid
+    private static void checkDate(String date) {
+        if (!date.matches("\\d{4}-\\d{2}-\\d{2}")) {
+            throw new IllegalArgumentException("Improper date format: Ensure the date is in the YYYY-MM-DD format.");
+        }
+    }
+
+    // Method to verify the URL format, throwing an exception if invalid
+    // In place of the URL a directory of recorded fixture files may be given, which is replayed without the network
+    private static void checkURL(String URL) {
+        if (!RestDataSource.isServiceUrl(URL) && !RestDataSource.isFixtureDirectory(URL)) {
+            throw new IllegalArgumentException("Invalid URL: The URL should be an http or https URL, such as https://ilp-rest.azurewebsites.net, or name a fixture directory.");
+        }
+    }
 
-        // Extract year, month, and day from the date for file naming
-        String year = date.substring(0, 4);
-        String month = date.substring(5, 7);
-        String day = date.substring(8, 10);
+    // Method to open the data source for the URL or fixture directory, recording everything it returns
+    // into the fixture directory given by -Drest.record=DIR so the run can be replayed later
+    private static RestDataSource openDataSource(String URL) throws IOException {
+        RestDataSource dataSource = RestDataSource.forLocation(URL);
+        String recordDirectory = System.getProperty("rest.record");
+        if (recordDirectory != null) {
+            dataSource = new RecordingDataSource(dataSource, Path.of(recordDirectory));
+        }
+        return dataSource;
+    }
+
+    // Method to open the route store file given by -Droute.store=PATH, which keeps planned paths between runs,
+    // or return null when no store is given and every run plans its paths afresh
+    private static RouteStore openRouteStore(NamedRegion[] noFlyZones, NamedRegion centralArea) throws IOException {
+        String storeFile = System.getProperty("route.store");
+        return storeFile == null ? null : RouteStore.open(Path.of(storeFile), noFlyZones, centralArea);
+    }
+
+    // Method to validate the orders in parallel, report how many got each validation code and return the valid ones in order
+    private static List<Order> validOrders(Order[] orders, Restaurant[] restaurants, ValidateOrder orderValidator) {
+        ValidateOrder.ValidationSummary summary = orderValidator.validateAll(orders, restaurants);
+        System.out.println("Validated " + orders.length + " orders: " + summary.codeCounts());
+        return summary.validOrders();
+    }
 
+    // Method to create the path manager, with the planner chosen through -Dplanner=greedy|astar|visibility,
+    // the distinct restaurant routes planned concurrently when -Dparallel=true, and orders from the same restaurant
+    // batched into trips of at most N pizzas when -Dbatch.pizzas=N; the route cache is bounded by -DrouteCache.routes and -DrouteCache.moves
+    private static PathManager createPathManager(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, List<Order> orders) {
+        PlannerMode plannerMode = PlannerMode.fromName(System.getProperty("planner", "greedy"));
+        PathManager pathManager = new PathManager(noFlyZones, centralArea, restaurants, orders, plannerMode);
+        pathManager.setParallelPlanning(Boolean.getBoolean("parallel"));
+        pathManager.setBatchCapacity(Integer.getInteger("batch.pizzas", 0));
+        pathManager.setRouteCache(new RouteCache(Integer.getInteger("routeCache.routes", RouteCache.DEFAULT_MAX_ROUTES),
+                Long.getLong("routeCache.moves", RouteCache.DEFAULT_MAX_MOVES)));
+        return pathManager;
+    }
+
+    // Method to write the metrics gathered so far next to the result files for a date
+    private static void writeMetrics(String date) {
+        String metricsFileName = "metrics-" + date + ".json";
+        try {
+            Metrics.global().writeJson(Path.of("resultfiles", metricsFileName));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.out.println("Created " + metricsFileName);
+    }
+
+    // Method to write a day's result files, sharing the flight path between a fleet of drones when -Ddrones=N is set
+    private static void writeDayFiles(String date, Order[] orders, FlightPath paths) {
+        int droneCount = Integer.getInteger("drones", 0);
+        if (droneCount > 0) {
+            writeFleetFiles(date, orders, paths, droneCount);
+        } else {
+            writeResultFiles(date, orders, paths);
+        }
+    }
+
+    // Method to schedule a day's legs onto the fleet, each drone flying at most -Ddrone.moves moves (DRONE_MAX_MOVES by default),
+    // then write the deliveries file and one flightpath and drone file per drone; orders no drone has room for are not delivered
+    private static void writeFleetFiles(String date, Order[] orders, FlightPath paths, int droneCount) {
+        long stageStart = System.nanoTime();
+        FleetScheduler scheduler = new FleetScheduler(droneCount, Integer.getInteger("drone.moves", DRONE_MAX_MOVES));
+        FleetScheduler.FleetSchedule schedule = scheduler.schedule(paths.getLegs());
+        SCHEDULING_NANOS.recordNanosSince(stageStart);
+        Set<String> undelivered = new HashSet<>();
+        for (FlightPath.Leg leg : schedule.unassignedLegs()) {
+            undelivered.addAll(leg.orderNumbers());
+        }
+        for (Order order : orders) {
+            if (order.getOrderStatus() == OrderStatus.DELIVERED && undelivered.contains(order.getOrderNo())) {
+                order.setOrderStatus(OrderStatus.VALID_BUT_NOT_DELIVERED);
+            }
+        }
+        System.out.println("Fleet of " + droneCount + " drones with " + scheduler.getMoveBudget() + " moves each: makespan "
+                + schedule.makespan() + " moves, utilization " + String.format("%.1f", 100 * schedule.utilization()) + "%, "
+                + undelivered.size() + " orders not delivered, scheduled in " + ((double) (System.nanoTime() - stageStart) / 1_000_000) + " ms");
+
+        long outputStart = System.nanoTime();
+        new File("resultfiles").mkdirs();
+        writeDeliveriesFile(date, orders);
+        for (int drone = 0; drone < droneCount; drone++) {
+            writePathFiles(date + "-drone" + (drone + 1), schedule.dronePaths().get(drone));
+        }
+        OUTPUT_NANOS.recordNanosSince(outputStart);
+    }
+
+    // Method to stream the deliveries, flightpath and drone files for a date into the result directory, timing each file
+    private static void writeResultFiles(String date, Order[] orders, List<Movement> paths) {
+        long outputStart = System.nanoTime();
         // Create a directory for result files if it does not exist
         new File("resultfiles").mkdirs();
+        writeDeliveriesFile(date, orders);
+        writePathFiles(date, paths);
+        OUTPUT_NANOS.recordNanosSince(outputStart);
+    }
 
-        // Generate filenames for delivery, flightpath, and drone data and write the data to these files
-        String deliveryFileName = "deliveries-" + year + "-" + month + "-" + day + ".json";
-        try (FileWriter fileWriter = new FileWriter("resultfiles/" + deliveryFileName)) {
-            fileWriter.write(deliveryJson(orders));
+    // Method to stream the deliveries file for a date, whose YYYY-MM-DD format was checked with the arguments
+    private static void writeDeliveriesFile(String date, Order[] orders) {
+        String deliveryFileName = "deliveries-" + date + ".json";
+        long fileStart = System.nanoTime();
+        try {
+            OutputWriter.writeDeliveries(orders, Path.of("resultfiles", deliveryFileName));
         } catch (IOException e) {
             e.printStackTrace();
         }
+        Metrics.global().histogram("output.deliveries.nanos").recordNanosSince(fileStart);
         System.out.println("Created " + deliveryFileName);
+    }
 
-        String flightpathFileName = "flightpath-" + year + "-" + month + "-" + day + ".json";
-        try (FileWriter fileWriter = new FileWriter("resultfiles/" + flightpathFileName)) {
-            fileWriter.write(flightpathJson(paths));
+    // Method to stream the flightpath and drone files for a name such as a date, or a date and drone number
+    private static void writePathFiles(String name, List<Movement> paths) {
+        String flightpathFileName = "flightpath-" + name + ".json";
+        long fileStart = System.nanoTime();
+        try {
+            OutputWriter.writeFlightpath(paths, Path.of("resultfiles", flightpathFileName));
         } catch (IOException e) {
             e.printStackTrace();
         }
+        Metrics.global().histogram("output.flightpath.nanos").recordNanosSince(fileStart);
         System.out.println("Created " + flightpathFileName);
 
-        String droneFileName = "drone-" + year + "-" + month + "-" + day + ".geojson";
-        try (FileWriter fileWriter = new FileWriter("resultfiles/" + droneFileName)) {
-            fileWriter.write(geoJson(paths));
+        String droneFileName = "drone-" + name + ".geojson";
+        fileStart = System.nanoTime();
+        try {
+            OutputWriter.writeGeoJson(paths, Path.of("resultfiles", droneFileName));
         } catch (IOException e) {
             e.printStackTrace();
         }
-        System.out.println("Created " + droneFileName + "\n");
+        Metrics.global().histogram("output.drone.nanos").recordNanosSince(fileStart);
+        System.out.println("Created " + droneFileName);
 
-        // Calculate and print the elapsed time of the program execution
-        long EndTime = System.currentTimeMillis();
-        System.out.println("Time Elapsed : " + ((double) (EndTime - StartTime) / 1000) + " seconds");
+        // Also write the compact binary flightpath file when -Dflightpath.binary=true
+        if (Boolean.getBoolean("flightpath.binary")) {
+            String binaryFileName = "flightpath-" + name + ".bin";
+            fileStart = System.nanoTime();
+            try {
+                BinaryFlightpath.write(paths, Path.of("resultfiles", binaryFileName));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            Metrics.global().histogram("output.flightpathBinary.nanos").recordNanosSince(fileStart);
+            System.out.println("Created " + binaryFileName);
+        }
     }
 
     // Helper method to convert orders to a JSON string for delivery data
@@ -0,0 +1,273 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Define a binary columnar flightpath file, written and read through memory-mapped buffers, as a compact alternative to the JSON file
+// The file is a little-endian header, the dictionary of order numbers, then one column each of start longitudes and latitudes,
+// end positions, order number indexes and angle indexes; opening a file maps it and reads moves straight out of the columns
+public class BinaryFlightpath extends AbstractList<Movement> {
+    private static final int MAGIC = 0x50464450; // "PDFP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    // Set when every move starts where the previous one ended, so only the end of the last move is stored
+    private static final int FLAG_CONTINUOUS = 1;
+    // Angle index stored for a hover move (angle 999)
+    private static final byte HOVER = (byte) 0xFF;
+    // Dictionary length stored for a move without an order number
+    private static final int NO_ORDER = -1;
+
+    private final int moveCount;
+    private final boolean continuous;
+    private final String[] orderNumbers;
+    private final DoubleBuffer fromLngs, fromLats, toLngs, toLats;
+    private final IntBuffer orderIndexes;
+    private final ByteBuffer angleIndexes;
+
+    private BinaryFlightpath(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary flightpath file.");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary flightpath version " + buffer.getInt(4) + ".");
+        }
+        continuous = (buffer.getInt(8) & FLAG_CONTINUOUS) != 0;
+        moveCount = buffer.getInt(12);
+        int dictionarySize = buffer.getInt(16);
+        int dictionaryBytes = buffer.getInt(20);
+        // Check the counts in the header against the length of the file before reading anything they point to
+        if (moveCount < 0 || dictionarySize < 0 || dictionaryBytes < 0 || dictionaryBytes > buffer.remaining() - HEADER_BYTES
+                || (long) dictionarySize * Integer.BYTES > dictionaryBytes) {
+            throw new IllegalArgumentException("Corrupt binary flightpath file: the header does not fit the file's " + buffer.remaining() + " bytes.");
+        }
+        long expectedSize = fileSize(dictionaryBytes, moveCount, continuous);
+        if (buffer.remaining() != expectedSize) {
+            throw new IllegalArgumentException("Truncated or corrupt binary flightpath file: the header describes "
+                    + expectedSize + " bytes but the file holds " + buffer.remaining() + ".");
+        }
+        orderNumbers = new String[dictionarySize];
+        int dictionaryEnd = HEADER_BYTES + dictionaryBytes;
+        int position = HEADER_BYTES;
+        for (int i = 0; i < orderNumbers.length; i++) {
+            int length = buffer.getInt(position);
+            position += Integer.BYTES;
+            if (length != NO_ORDER && (length < 0 || length > dictionaryEnd - position)) {
+                throw new IllegalArgumentException("Corrupt binary flightpath file: order number " + i + " runs past the dictionary.");
+            }
+            if (length != NO_ORDER) {
+                byte[] bytes = new byte[length];
+                buffer.get(position, bytes);
+                orderNumbers[i] = new String(bytes, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+        position = align(position);
+
+        // Each column is a view over the mapped file, so nothing is copied until a move is read
+        fromLngs = doubleColumn(buffer, position, moveCount);
+        position += moveCount * Double.BYTES;
+        fromLats = doubleColumn(buffer, position, moveCount);
+        position += moveCount * Double.BYTES;
+        int endCount = continuous ? (moveCount == 0 ? 0 : 1) : moveCount;
+        toLngs = doubleColumn(buffer, position, endCount);
+        position += endCount * Double.BYTES;
+        toLats = doubleColumn(buffer, position, endCount);
+        position += endCount * Double.BYTES;
+        orderIndexes = buffer.slice(position, moveCount * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        position += moveCount * Integer.BYTES;
+        angleIndexes = buffer.slice(position, moveCount);
+    }
+
+    // Map a binary flightpath file for reading; the mapping is released when the returned list is no longer referenced
+    public static BinaryFlightpath open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryFlightpath(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Write the moves to a binary flightpath file, replacing any existing file
+    // Every angle must be a multiple of 22.5 degrees from 0 to 360, or 999 for a hover
+    public static void write(List<Movement> moves, Path file) throws IOException {
+        // First pass: build the dictionary of order numbers and check whether each move starts where the previous one ended
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> orderNumbers = new ArrayList<>();
+        int dictionaryBytes = 0;
+        boolean continuous = true;
+        Movement previous = null;
+        int moveCount = 0;
+        for (Movement move : moves) {
+            String orderNumber = move.getOrderNumber();
+            if (!dictionary.containsKey(orderNumber)) {
+                dictionary.put(orderNumber, orderNumbers.size());
+                orderNumbers.add(orderNumber);
+                dictionaryBytes += Integer.BYTES + (orderNumber == null ? 0 : orderNumber.getBytes(StandardCharsets.UTF_8).length);
+            }
+            if (previous != null && !samePosition(previous.getEnd(), move.getStart())) {
+                continuous = false;
+            }
+            previous = move;
+            moveCount++;
+        }
+        int endCount = continuous ? (moveCount == 0 ? 0 : 1) : moveCount;
+        long size = fileSize(dictionaryBytes, moveCount, continuous);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The flight path is too long for a single binary flightpath file.");
+        }
+
+        // Second pass: fill the mapped file column by column
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(continuous ? FLAG_CONTINUOUS : 0).putInt(moveCount)
+                    .putInt(orderNumbers.size()).putInt(dictionaryBytes);
+            for (String orderNumber : orderNumbers) {
+                if (orderNumber == null) {
+                    buffer.putInt(NO_ORDER);
+                } else {
+                    byte[] bytes = orderNumber.getBytes(StandardCharsets.UTF_8);
+                    buffer.putInt(bytes.length).put(bytes);
+                }
+            }
+            int position = align(buffer.position());
+            DoubleBuffer fromLngs = doubleColumn(buffer, position, moveCount);
+            DoubleBuffer fromLats = doubleColumn(buffer, position + moveCount * Double.BYTES, moveCount);
+            DoubleBuffer toLngs = doubleColumn(buffer, position + 2 * moveCount * Double.BYTES, endCount);
+            DoubleBuffer toLats = doubleColumn(buffer, position + (2 * moveCount + endCount) * Double.BYTES, endCount);
+            position += (2 * moveCount + 2 * endCount) * Double.BYTES;
+            IntBuffer orderIndexes = buffer.slice(position, moveCount * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            ByteBuffer angleIndexes = buffer.slice(position + moveCount * Integer.BYTES, moveCount);
+            for (Movement move : moves) {
+                fromLngs.put(move.getStart().lng());
+                fromLats.put(move.getStart().lat());
+                if (!continuous) {
+                    toLngs.put(move.getEnd().lng());
+                    toLats.put(move.getEnd().lat());
+                }
+                orderIndexes.put(dictionary.get(move.getOrderNumber()));
+                angleIndexes.put(angleIndex(move.getAngle()));
+            }
+            if (continuous && previous != null) {
+                toLngs.put(previous.getEnd().lng());
+                toLats.put(previous.getEnd().lat());
+            }
+            buffer.force();
+        }
+    }
+
+    // Convert a binary flightpath file to today's JSON flightpath file
+    public static void convertToJson(Path binaryFile, Path jsonFile) throws IOException {
+        OutputWriter.writeFlightpath(open(binaryFile), jsonFile);
+    }
+
+    // Convert the binary flightpath file named by the first argument to the JSON file named by the second
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Argument count error: Expected the binary flightpath file and the JSON file to write.");
+        }
+        convertToJson(Path.of(args[0]), Path.of(args[1]));
+    }
+
+    // Get the number of moves in the file
+    @Override
+    public int size() {
+        return moveCount;
+    }
+
+    // Build the move at the given position from the columns
+    @Override
+    public Movement get(int index) {
+        Objects.checkIndex(index, moveCount);
+        LngLat start = new LngLat(getFromLng(index), getFromLat(index));
+        LngLat end = new LngLat(getToLng(index), getToLat(index));
+        return new Movement(start, getAngle(index), end, getOrderNumber(index));
+    }
+
+    // Get the longitude a move starts from
+    public double getFromLng(int index) {
+        return fromLngs.get(index);
+    }
+
+    // Get the latitude a move starts from
+    public double getFromLat(int index) {
+        return fromLats.get(index);
+    }
+
+    // Get the longitude a move ends at, which is where the next move starts when the moves are continuous
+    public double getToLng(int index) {
+        if (!continuous) {
+            return toLngs.get(index);
+        }
+        return index == moveCount - 1 ? toLngs.get(0) : fromLngs.get(index + 1);
+    }
+
+    // Get the latitude a move ends at
+    public double getToLat(int index) {
+        if (!continuous) {
+            return toLats.get(index);
+        }
+        return index == moveCount - 1 ? toLats.get(0) : fromLats.get(index + 1);
+    }
+
+    // Get the angle of a move in degrees, or 999 for a hover
+    public double getAngle(int index) {
+        byte angleIndex = angleIndexes.get(index);
+        return angleIndex == HOVER ? 999 : angleIndex * GeometryKernel.ANGLE_STEP;
+    }
+
+    // Get the order number a move was flown for
+    public String getOrderNumber(int index) {
+        return orderNumbers[orderIndexes.get(index)];
+    }
+
+    // Encode an angle as its multiple of 22.5 degrees, or HOVER for 999
+    private static byte angleIndex(double angle) {
+        if (angle == 999) {
+            return HOVER;
+        }
+        double steps = angle / GeometryKernel.ANGLE_STEP;
+        if (steps < 0 || steps > GeometryKernel.DIRECTIONS || steps != Math.rint(steps)) {
+            throw new IllegalArgumentException("Angle " + angle + " is not a multiple of 22.5 degrees from 0 to 360.");
+        }
+        return (byte) steps;
+    }
+
+    // Check if two positions are exactly the same point
+    private static boolean samePosition(LngLat a, LngLat b) {
+        return Double.compare(a.lng(), b.lng()) == 0 && Double.compare(a.lat(), b.lat()) == 0;
+    }
+
+    // Get a little-endian view of a column of doubles starting at a byte position
+    private static DoubleBuffer doubleColumn(ByteBuffer buffer, int position, int count) {
+        return buffer.slice(position, count * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    // Get the length of a file with the given dictionary and moves: the header and dictionary padded to a multiple of 8, then the columns
+    private static long fileSize(int dictionaryBytes, int moveCount, boolean continuous) {
+        int endCount = continuous ? (moveCount == 0 ? 0 : 1) : moveCount;
+        return align(HEADER_BYTES + dictionaryBytes) + (2L * moveCount + 2L * endCount) * Double.BYTES
+                + (long) moveCount * Integer.BYTES + moveCount;
+    }
+
+    // Round a byte position up to the next multiple of 8, so the double columns are aligned
+    private static int align(int position) {
+        return (position + Double.BYTES - 1) & -Double.BYTES;
+    }
+}
@@ -0,0 +1,92 @@
+package uk.ac.ed.inf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Define a scheduler that shares a day's delivery legs between a fleet of drones, each limited to a move budget
+// Legs are placed longest first on the drone that has flown the fewest moves so far, which keeps the makespan within 4/3 of the optimum
+public class FleetScheduler {
+    private final int droneCount;
+    private final int moveBudget;
+
+    // The legs given to each drone in delivery order, the legs no drone had room for, and the resulting load of the fleet
+    // The makespan is the largest number of moves flown by one drone; utilization is the share of the fleet's move budget used
+    public record FleetSchedule(List<FlightPath> dronePaths, List<FlightPath.Leg> unassignedLegs, int makespan, double utilization) {
+    }
+
+    // Constructor to initialize the scheduler with the size of the fleet and the number of moves each drone can fly
+    public FleetScheduler(int droneCount, int moveBudget) {
+        if (droneCount < 1) {
+            throw new IllegalArgumentException("The fleet must have at least one drone.");
+        }
+        if (moveBudget < 1) {
+            throw new IllegalArgumentException("The move budget of a drone must be positive.");
+        }
+        this.droneCount = droneCount;
+        this.moveBudget = moveBudget;
+    }
+
+    // Assign each leg to a drone, using the number of moves it flies, and leave out the legs that fit on no drone
+    public FleetSchedule schedule(List<FlightPath.Leg> legs) {
+        int legCount = legs.size();
+        // Sort the legs by length, packing the move count above the leg index so ties keep delivery order when read from the end
+        long[] legsByLength = new long[legCount];
+        for (int i = 0; i < legCount; i++) {
+            legsByLength[i] = ((long) legs.get(i).getMoveCount() << 32) | (legCount - 1 - i);
+        }
+        Arrays.sort(legsByLength);
+
+        // Queue the drones by moves flown, packing the moves above the drone index so ties go to the lowest index
+        PriorityQueue<Long> dronesByLoad = new PriorityQueue<>(droneCount);
+        for (int drone = 0; drone < droneCount; drone++) {
+            dronesByLoad.add((long) drone);
+        }
+        int[] droneOfLeg = new int[legCount];
+        int[] loads = new int[droneCount];
+        for (int k = legCount - 1; k >= 0; k--) {
+            int leg = legCount - 1 - (int) legsByLength[k];
+            int moves = (int) (legsByLength[k] >>> 32);
+            long leastLoaded = dronesByLoad.peek();
+            int drone = (int) leastLoaded;
+            // If the least loaded drone has no room for the leg then no drone has
+            if (loads[drone] + moves > moveBudget) {
+                droneOfLeg[leg] = -1;
+                continue;
+            }
+            dronesByLoad.poll();
+            loads[drone] += moves;
+            droneOfLeg[leg] = drone;
+            dronesByLoad.add(((long) loads[drone] << 32) | drone);
+        }
+
+        List<List<FlightPath.Leg>> legsByDrone = new ArrayList<>();
+        for (int drone = 0; drone < droneCount; drone++) {
+            legsByDrone.add(new ArrayList<>());
+        }
+        List<FlightPath.Leg> unassignedLegs = new ArrayList<>();
+        for (int i = 0; i < legCount; i++) {
+            (droneOfLeg[i] < 0 ? unassignedLegs : legsByDrone.get(droneOfLeg[i])).add(legs.get(i));
+        }
+        List<FlightPath> dronePaths = new ArrayList<>();
+        int makespan = 0;
+        long totalMoves = 0;
+        for (int drone = 0; drone < droneCount; drone++) {
+            dronePaths.add(new FlightPath(legsByDrone.get(drone)));
+            makespan = Math.max(makespan, loads[drone]);
+            totalMoves += loads[drone];
+        }
+        return new FleetSchedule(dronePaths, unassignedLegs, makespan, (double) totalMoves / ((long) droneCount * moveBudget));
+    }
+
+    // Get the number of drones in the fleet
+    public int getDroneCount() {
+        return droneCount;
+    }
+
+    // Get the number of moves each drone can fly
+    public int getMoveBudget() {
+        return moveBudget;
+    }
+}
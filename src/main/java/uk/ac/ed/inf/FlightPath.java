@@ -0,0 +1,119 @@
+package uk.ac.ed.inf;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Define the drone's complete flight as a read-only list of movements, built lazily from shared routes
+// Each leg only holds a reference to its cached route, so reusing a route costs O(1) memory instead of a copy
+public class FlightPath extends AbstractList<Movement> {
+    private final List<Leg> legs;
+    // Index of the first movement of each leg, with the total number of movements at the end
+    private final int[] legOffsets;
+
+    // A round trip flown along a route for one order, or for a batch of orders picked up together from the same restaurant
+    // The drone flies out and back once, hovering at the restaurant and at the delivery point once for each order
+    public record Leg(Route route, List<String> orderNumbers) {
+        // Constructor to check that the leg delivers at least one order, keeping its own copy of the order numbers
+        public Leg {
+            if (orderNumbers.isEmpty()) {
+                throw new IllegalArgumentException("A leg must deliver at least one order.");
+            }
+            orderNumbers = Collections.unmodifiableList(new ArrayList<>(orderNumbers));
+        }
+
+        // Constructor to create the round trip for a single order
+        public Leg(Route route, String orderNumber) {
+            this(route, Collections.singletonList(orderNumber));
+        }
+
+        // Get the number of moves flown: the round trip plus one more hover at each end for every order after the first
+        public int getMoveCount() {
+            int roundTripMoves = route.getRoundTripMoveCount();
+            return roundTripMoves == 0 ? 0 : roundTripMoves + 2 * (orderNumbers.size() - 1);
+        }
+
+        // Build one move of the leg: the outbound moves and the way back are flown for the first order,
+        // and each order has its own pickup hover at the restaurant and delivery hover at the delivery point
+        public Movement move(int move) {
+            int outboundMoves = route.getMoveCount();
+            int extraHovers = orderNumbers.size() - 1;
+            if (move < outboundMoves) {
+                return route.roundTripMove(move, orderNumbers.get(0));
+            }
+            if (move < outboundMoves + extraHovers) {
+                // The outbound leg ends with a hover at the restaurant, repeated for the other orders
+                return route.roundTripMove(outboundMoves - 1, orderNumbers.get(move - outboundMoves + 1));
+            }
+            if (move < 2 * outboundMoves - 1 + extraHovers) {
+                return route.roundTripMove(move - extraHovers, orderNumbers.get(0));
+            }
+            return route.roundTripMove(2 * outboundMoves - 1, orderNumbers.get(move - 2 * outboundMoves + 1 - extraHovers));
+        }
+    }
+
+    // Constructor to create a flight path from its legs, in flying order
+    public FlightPath(List<Leg> legs) {
+        this.legs = List.copyOf(legs);
+        this.legOffsets = new int[legs.size() + 1];
+        for (int i = 0; i < legs.size(); i++) {
+            legOffsets[i + 1] = legOffsets[i] + legs.get(i).getMoveCount();
+        }
+    }
+
+    // Get the legs of the flight path, in flying order
+    public List<Leg> getLegs() {
+        return legs;
+    }
+
+    // Build the movement at the given position in the flight path
+    @Override
+    public Movement get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for length " + size());
+        }
+        int search = Arrays.binarySearch(legOffsets, index);
+        // Legs of zero length share an offset with the next leg, so step forward to the leg that holds the move
+        int leg = search >= 0 ? search : -search - 2;
+        while (legOffsets[leg + 1] == index) {
+            leg++;
+        }
+        return legs.get(leg).move(index - legOffsets[leg]);
+    }
+
+    // Get the total number of movements in the flight path
+    @Override
+    public int size() {
+        return legOffsets[legs.size()];
+    }
+
+    // Iterate the movements leg by leg without searching for each position
+    @Override
+    public Iterator<Movement> iterator() {
+        return new Iterator<>() {
+            private int leg = 0;
+            private int move = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (leg < legs.size() && move >= legs.get(leg).getMoveCount()) {
+                    leg++;
+                    move = 0;
+                }
+                return leg < legs.size();
+            }
+
+            @Override
+            public Movement next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return legs.get(leg).move(move++);
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package uk.ac.ed.inf;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Define the primitive-double geometry used on the route planning hot path, without allocating any objects
+// Every calculation uses the same expressions, in the same order, as the LngLat-based code so results are bit-for-bit identical
+public final class GeometryKernel {
+    // Number of legal compass directions, and the step between them in degrees
+    public static final int DIRECTIONS = 16;
+    public static final double ANGLE_STEP = 22.5;
+    // Results of testing a polygon edge against the eastward ray from a point
+    static final int RAY_MISSES_EDGE = 0;
+    static final int RAY_CROSSES_EDGE = 1;
+    static final int POINT_ON_EDGE = 2;
+
+    // Longitude and latitude offsets of one move for each multiple of 22.5 degrees from 0 to 360 inclusive
+    // 360 is kept apart from 0 because sin(toRadians(360)) is not exactly zero
+    private static final double[] MOVE_LNG = new double[DIRECTIONS + 1];
+    private static final double[] MOVE_LAT = new double[DIRECTIONS + 1];
+
+    static {
+        for (int i = 0; i <= DIRECTIONS; i++) {
+            MOVE_LNG[i] = DRONE_MOVE_DISTANCE * Math.cos(Math.toRadians(i * ANGLE_STEP));
+            MOVE_LAT[i] = DRONE_MOVE_DISTANCE * Math.sin(Math.toRadians(i * ANGLE_STEP));
+        }
+    }
+
+    private GeometryKernel() {
+    }
+
+    // Get the longitude after one move from the given longitude, for the angle index * 22.5 degrees
+    public static double nextLng(double lng, int angleIndex) {
+        return lng + MOVE_LNG[angleIndex];
+    }
+
+    // Get the latitude after one move from the given latitude, for the angle index * 22.5 degrees
+    public static double nextLat(double lat, int angleIndex) {
+        return lat + MOVE_LAT[angleIndex];
+    }
+
+    // Get the squared Euclidean distance between two points
+    public static double distanceSquared(double lng1, double lat1, double lng2, double lat2) {
+        double lngDifference = lng2 - lng1;
+        double latDifference = lat1 - lat2;
+        return lngDifference * lngDifference + latDifference * latDifference;
+    }
+
+    // Get the Euclidean distance between two points
+    public static double distance(double lng1, double lat1, double lng2, double lat2) {
+        return Math.sqrt(distanceSquared(lng1, lat1, lng2, lat2));
+    }
+
+    // Determine the orientation of the triplet (a, b, c): 0 when collinear, 1 when clockwise and 2 when anticlockwise
+    public static int orientation(double aLng, double aLat, double bLng, double bLat, double cLng, double cLat) {
+        double val = (bLat - aLat) * (cLng - bLng) - (bLng - aLng) * (cLat - bLat);
+        return (val == 0) ? 0 : ((val < 0) ? 2 : 1);
+    }
+
+    // Check if a point lies within the bounding box of the segment from a to b
+    public static boolean isWithinSegmentBox(double aLng, double aLat, double bLng, double bLat, double lng, double lat) {
+        return lng <= Math.max(aLng, bLng) && lng >= Math.min(aLng, bLng) && lat <= Math.max(aLat, bLat) && lat >= Math.min(aLat, bLat);
+    }
+
+    // Check if the segment from a to b and the segment from c to d intersect, including touching and collinear overlap
+    public static boolean segmentsIntersect(double aLng, double aLat, double bLng, double bLat,
+                                            double cLng, double cLat, double dLng, double dLat) {
+        int direction1 = orientation(aLng, aLat, bLng, bLat, cLng, cLat);
+        int direction2 = orientation(aLng, aLat, bLng, bLat, dLng, dLat);
+        int direction3 = orientation(cLng, cLat, dLng, dLat, aLng, aLat);
+        int direction4 = orientation(cLng, cLat, dLng, dLat, bLng, bLat);
+        return (direction1 != direction2 && direction3 != direction4)
+                || (direction1 == 0 && isWithinSegmentBox(aLng, aLat, bLng, bLat, cLng, cLat))
+                || (direction2 == 0 && isWithinSegmentBox(aLng, aLat, bLng, bLat, dLng, dLat))
+                || (direction3 == 0 && isWithinSegmentBox(cLng, cLat, dLng, dLat, aLng, aLat))
+                || (direction4 == 0 && isWithinSegmentBox(cLng, cLat, dLng, dLat, bLng, bLat));
+    }
+
+    // Test one polygon edge from a to b against the eastward ray from a point
+    static int classifyEdge(double aLng, double aLat, double bLng, double bLat, double lng, double lat) {
+        int turn = orientation(aLng, aLat, lng, lat, bLng, bLat);
+        if (turn == 0 && isWithinSegmentBox(aLng, aLat, bLng, bLat, lng, lat)) {
+            return POINT_ON_EDGE;
+        }
+        // An edge only counts when exactly one end is above the ray, so a ray through a vertex counts it once
+        // and a ray along a horizontal edge does not count that edge
+        if ((aLat > lat) == (bLat > lat)) {
+            return RAY_MISSES_EDGE;
+        }
+        // The edge is crossed east of the point when the point is left of an upward edge or right of a downward one
+        return turn == (bLat > aLat ? 1 : 2) ? RAY_CROSSES_EDGE : RAY_MISSES_EDGE;
+    }
+
+    // Check if a point is inside a polygon, or on its boundary, by counting edge crossings of an eastward ray
+    public static boolean pointInPolygon(double[] lngs, double[] lats, int edges, double lng, double lat) {
+        // There must be at least 3 edges in a polygon
+        if (edges < 3) return false;
+        int count = 0;
+        for (int i = 0; i < edges; i++) {
+            int j = (i + 1) % edges;
+            switch (classifyEdge(lngs[i], lats[i], lngs[j], lats[j], lng, lat)) {
+                case POINT_ON_EDGE:
+                    return true;
+                case RAY_CROSSES_EDGE:
+                    count++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return (count & 1) == 1;
+    }
+}
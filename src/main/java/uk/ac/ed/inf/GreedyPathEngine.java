@@ -0,0 +1,73 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_IS_CLOSE_DISTANCE;
+
+// Define a path engine that always moves to the neighbour closest to the target, avoiding previously seen positions
+public class GreedyPathEngine implements PathEngine {
+    // Positions closer than this are treated as the same point, absorbing floating-point drift between moves
+    static final double POSITION_EPSILON = 1e-10;
+    // Upper bound on the moves of a path before the search gives up, far beyond any route across the planning area
+    static final int MAX_MOVES = 200_000;
+
+    private final RegionIndex regionIndex;
+
+    // Constructor to initialize the engine with the indexed regions it has to respect
+    public GreedyPathEngine(RegionIndex regionIndex) {
+        this.regionIndex = regionIndex;
+    }
+
+    // Calculate a path from one location to another by always taking the closest valid neighbour
+    @Override
+    public List<Movement> calculatePath(LngLat location1, LngLat location2, String orderNumber, SearchStatistics statistics) {
+        // Initialize variables for path calculation
+        VisitedPositionSet previousMovement = new VisitedPositionSet(POSITION_EPSILON);
+        LngLat currentPosition = location1;
+        ArrayList<Movement> path = new ArrayList<>();
+        int tempAngleIndex = 0;
+        double distance;
+
+        // Continue calculating path until the drone is close to the target
+        while (GeometryKernel.distance(currentPosition.lng(), currentPosition.lat(), location2.lng(), location2.lat()) >= DRONE_IS_CLOSE_DISTANCE) {
+            if (path.size() >= MAX_MOVES) {
+                statistics.recordVisitedSet(previousMovement);
+                throw new IllegalStateException("No path could be found from " + location1 + " to " + location2 + " within " + MAX_MOVES + " moves.");
+            }
+            statistics.recordNodeExpanded();
+            double closestDistance = Double.MAX_VALUE;
+            boolean isCurrentPositionInCentralArea = regionIndex.isInCentralArea(currentPosition);
+            // Iterate through all possible angles to find the closest next position
+            for (int angleIndex = 0; angleIndex < GeometryKernel.DIRECTIONS; angleIndex++) {
+                double nextLng = GeometryKernel.nextLng(currentPosition.lng(), angleIndex);
+                double nextLat = GeometryKernel.nextLat(currentPosition.lat(), angleIndex);
+                // Ensure the drone doesn't retrace its steps and avoids no-fly zones
+                if (!previousMovement.contains(nextLng, nextLat)) {
+                    boolean isNextPositionInCentralArea = regionIndex.isInCentralArea(nextLng, nextLat);
+                    // Update path if the move neither ends in nor cuts across a no-fly zone
+                    if (!regionIndex.crossesNoFlyZone(currentPosition.lng(), currentPosition.lat(), nextLng, nextLat, statistics)) {
+                        if (isCurrentPositionInCentralArea || !isNextPositionInCentralArea) {
+                            distance = GeometryKernel.distance(nextLng, nextLat, location2.lng(), location2.lat());
+                            if (distance < closestDistance) {
+                                closestDistance = distance;
+                                tempAngleIndex = angleIndex; // Update the angle leading to the closest position
+                            }
+                        }
+                    }
+                    previousMovement.add(nextLng, nextLat); // Remember this movement
+                }
+            }
+            // Add the movement to the path and update the current position
+            LngLat nextPosition = new LngLat(GeometryKernel.nextLng(currentPosition.lng(), tempAngleIndex),
+                    GeometryKernel.nextLat(currentPosition.lat(), tempAngleIndex));
+            path.add(new Movement(currentPosition, tempAngleIndex * GeometryKernel.ANGLE_STEP, nextPosition, orderNumber));
+            currentPosition = nextPosition;
+        }
+        path.add(new Movement(currentPosition, 999, currentPosition, orderNumber));
+        statistics.recordVisitedSet(previousMovement);
+        return path;// Return the calculated path
+    }
+}
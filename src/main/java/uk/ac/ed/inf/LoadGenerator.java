@@ -0,0 +1,345 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Define a generator of synthetic REST data at any volume: orders with a chosen share of each validation failure,
+// and random but valid no-fly zone layouts and restaurant placements around the delivery point
+// The same seed always gives the same data, so runs at 10x, 100x or 1000x today's volume can be repeated and compared
+public class LoadGenerator {
+    // Half the width and height of the area zones and restaurants are placed in, centred on the delivery point,
+    // which covers today's restaurants; the area grows when more zones are asked for than fit in it
+    static final double AREA_HALF_WIDTH = 0.013;
+    static final double AREA_HALF_HEIGHT = 0.005;
+    // Smallest and largest distance from the centre of a zone to its corners
+    static final double MIN_ZONE_RADIUS = 2 * DRONE_MOVE_DISTANCE;
+    static final double MAX_ZONE_RADIUS = 0.0012;
+    // Gap kept between zones, and around the delivery point and restaurants, so a drone can always fly between them
+    static final double CLEARANCE = 2 * DRONE_MOVE_DISTANCE;
+    // Largest share of the area the zones and their clearances may take up, which random placement can always reach
+    private static final double MAX_ZONE_COVERAGE = 0.3;
+    // Attempts at placing one zone or restaurant before giving up
+    private static final int MAX_PLACEMENT_ATTEMPTS = 100_000;
+    // The central area served today
+    public static final NamedRegion CENTRAL_AREA = new NamedRegion(SystemConstants.CENTRAL_REGION_NAME, new LngLat[]{
+            new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)});
+    // The validation failures an order can be generated with, each breaking exactly one rule
+    public static final List<OrderValidationCode> FAILURES = List.of(OrderValidationCode.CARD_NUMBER_INVALID,
+            OrderValidationCode.EXPIRY_DATE_INVALID, OrderValidationCode.CVV_INVALID, OrderValidationCode.TOTAL_INCORRECT,
+            OrderValidationCode.PIZZA_NOT_DEFINED, OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED,
+            OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS, OrderValidationCode.RESTAURANT_CLOSED);
+    private static final DateTimeFormatter EXPIRY_FORMAT = DateTimeFormatter.ofPattern("MM/yy");
+
+    private final Random random;
+    // Number given to the next order, so order numbers stay unique across days
+    private int nextOrderNumber;
+
+    // Constructor to initialize the generator with the seed all of its data is drawn from
+    public LoadGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    // Generate non-overlapping no-fly zones with the given number of corners each, none covering the delivery point
+    // Each zone is star-shaped around its centre, so its edges never cross, and zones shrink as more are asked for
+    public NamedRegion[] noFlyZones(int zoneCount, int vertexCount) {
+        if (zoneCount < 0) {
+            throw new IllegalArgumentException("The number of no-fly zones must not be negative.");
+        }
+        if (vertexCount < 3) {
+            throw new IllegalArgumentException("A no-fly zone needs at least 3 vertices.");
+        }
+        double area = 4 * AREA_HALF_WIDTH * AREA_HALF_HEIGHT;
+        double radius = Math.max(MIN_ZONE_RADIUS, Math.min(MAX_ZONE_RADIUS, Math.sqrt(area / (8 * Math.PI * Math.max(1, zoneCount)))));
+        double occupied = zoneCount * Math.PI * Math.pow(radius + CLEARANCE, 2);
+        double scale = Math.max(1, Math.sqrt(occupied / (MAX_ZONE_COVERAGE * area)));
+
+        // Place bounding circles first, each clear of the delivery point and of the circles placed before it
+        List<double[]> circles = new ArrayList<>();
+        NamedRegion[] zones = new NamedRegion[zoneCount];
+        for (int zone = 0; zone < zoneCount; zone++) {
+            double[] circle = null;
+            for (int attempt = 0; circle == null && attempt < MAX_PLACEMENT_ATTEMPTS; attempt++) {
+                double[] candidate = {
+                        PathManager.DELIVERY_POINT.lng() + (2 * random.nextDouble() - 1) * AREA_HALF_WIDTH * scale,
+                        PathManager.DELIVERY_POINT.lat() + (2 * random.nextDouble() - 1) * AREA_HALF_HEIGHT * scale,
+                        radius * (0.5 + 0.5 * random.nextDouble())};
+                if (isClear(candidate[0], candidate[1], candidate[2], circles)) {
+                    circle = candidate;
+                }
+            }
+            if (circle == null) {
+                throw new IllegalStateException("Could not place no-fly zone " + (zone + 1) + " of " + zoneCount + ".");
+            }
+            circles.add(circle);
+            zones[zone] = new NamedRegion("Synthetic Zone " + (zone + 1), starPolygon(circle, vertexCount));
+        }
+        return zones;
+    }
+
+    // Generate restaurants clear of the no-fly zones, each closed on two days of the week and selling its own pizzas
+    public Restaurant[] restaurants(int restaurantCount, int menuSize, NamedRegion[] noFlyZones) {
+        if (restaurantCount < 1 || menuSize < 1) {
+            throw new IllegalArgumentException("At least one restaurant with at least one pizza is needed.");
+        }
+        // Keep restaurants clear of each zone's bounding circle, within an area that covers every zone
+        List<double[]> circles = new ArrayList<>();
+        double halfWidth = AREA_HALF_WIDTH, halfHeight = AREA_HALF_HEIGHT;
+        for (NamedRegion zone : noFlyZones) {
+            double[] circle = boundingCircle(zone.vertices());
+            circles.add(circle);
+            halfWidth = Math.max(halfWidth, Math.abs(circle[0] - PathManager.DELIVERY_POINT.lng()));
+            halfHeight = Math.max(halfHeight, Math.abs(circle[1] - PathManager.DELIVERY_POINT.lat()));
+        }
+
+        Restaurant[] restaurants = new Restaurant[restaurantCount];
+        for (int i = 0; i < restaurantCount; i++) {
+            LngLat location = null;
+            for (int attempt = 0; location == null && attempt < MAX_PLACEMENT_ATTEMPTS; attempt++) {
+                double lng = PathManager.DELIVERY_POINT.lng() + (2 * random.nextDouble() - 1) * halfWidth;
+                double lat = PathManager.DELIVERY_POINT.lat() + (2 * random.nextDouble() - 1) * halfHeight;
+                if (isClear(lng, lat, 0, circles)) {
+                    location = new LngLat(lng, lat);
+                }
+            }
+            if (location == null) {
+                throw new IllegalStateException("Could not place restaurant " + (i + 1) + " clear of the no-fly zones.");
+            }
+            // Spread the closed days, so with seven or more restaurants every day has some open and some closed
+            List<DayOfWeek> openingDays = new ArrayList<>(Arrays.asList(DayOfWeek.values()));
+            openingDays.remove(DayOfWeek.of(1 + i % 7));
+            openingDays.remove(DayOfWeek.of(1 + (i + 3) % 7));
+            Pizza[] menu = new Pizza[menuSize];
+            for (int j = 0; j < menuSize; j++) {
+                menu[j] = new Pizza("R" + (i + 1) + ": Pizza " + (j + 1), 800 + 100 * random.nextInt(9));
+            }
+            restaurants[i] = new Restaurant("Synthetic Restaurant " + (i + 1), location, openingDays.toArray(new DayOfWeek[0]), menu);
+        }
+        return restaurants;
+    }
+
+    // Generate orders for a date, each failing validation with the chosen share of its failure code and valid otherwise
+    // The shares must be for codes in FAILURES and total at most 1; an order falls back to another code when the restaurants
+    // cannot produce its own, such as RESTAURANT_CLOSED when every restaurant is open on the date
+    public Order[] orders(Restaurant[] restaurants, LocalDate date, int orderCount, Map<OrderValidationCode, Double> failureShares) {
+        double[] cumulativeShares = new double[FAILURES.size()];
+        double total = 0;
+        for (Map.Entry<OrderValidationCode, Double> share : failureShares.entrySet()) {
+            if (!FAILURES.contains(share.getKey()) || share.getValue() < 0) {
+                throw new IllegalArgumentException("Cannot generate a share " + share.getValue() + " of " + share.getKey() + " orders.");
+            }
+        }
+        for (int i = 0; i < FAILURES.size(); i++) {
+            total += failureShares.getOrDefault(FAILURES.get(i), 0.0);
+            cumulativeShares[i] = total;
+        }
+        if (total > 1) {
+            throw new IllegalArgumentException("The failure shares add up to " + total + ", more than 1.");
+        }
+        List<Restaurant> open = new ArrayList<>();
+        List<Restaurant> closed = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            (Arrays.asList(restaurant.openingDays()).contains(date.getDayOfWeek()) ? open : closed).add(restaurant);
+        }
+
+        Order[] orders = new Order[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            double draw = random.nextDouble();
+            OrderValidationCode failure = null;
+            for (int k = 0; k < cumulativeShares.length && failure == null; k++) {
+                if (draw < cumulativeShares[k]) {
+                    failure = FAILURES.get(k);
+                }
+            }
+            orders[i] = order(restaurants, open, closed, date, failure);
+        }
+        return orders;
+    }
+
+    // Build one order that breaks only the given rule, or none when the failure is null
+    private Order order(Restaurant[] restaurants, List<Restaurant> open, List<Restaurant> closed, LocalDate date, OrderValidationCode failure) {
+        List<Restaurant> candidates = failure == OrderValidationCode.RESTAURANT_CLOSED ? closed : open;
+        if (candidates.isEmpty()) {
+            candidates = Arrays.asList(restaurants);
+        }
+        Restaurant restaurant = candidates.get(random.nextInt(candidates.size()));
+        int pizzaCount = failure == OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED
+                ? SystemConstants.MAX_PIZZAS_PER_ORDER + 1 + random.nextInt(2)
+                : (failure == OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS ? 2 : 1) + random.nextInt(SystemConstants.MAX_PIZZAS_PER_ORDER - 1);
+        Pizza[] pizzas = new Pizza[pizzaCount];
+        for (int j = 0; j < pizzaCount; j++) {
+            pizzas[j] = restaurant.menu()[random.nextInt(restaurant.menu().length)];
+        }
+        if (failure == OrderValidationCode.PIZZA_NOT_DEFINED) {
+            pizzas[0] = new Pizza("Undefined Pizza", 1000);
+        } else if (failure == OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS && restaurants.length > 1) {
+            Restaurant other = restaurants[random.nextInt(restaurants.length)];
+            while (other == restaurant) {
+                other = restaurants[random.nextInt(restaurants.length)];
+            }
+            pizzas[0] = other.menu()[random.nextInt(other.menu().length)];
+        }
+        int totalInPence = SystemConstants.ORDER_CHARGE_IN_PENCE;
+        for (Pizza pizza : pizzas) {
+            totalInPence += pizza.priceInPence();
+        }
+        if (failure == OrderValidationCode.TOTAL_INCORRECT) {
+            totalInPence += 1 + random.nextInt(500);
+        }
+
+        String cardNumber = cardNumber(failure == OrderValidationCode.CARD_NUMBER_INVALID);
+        LocalDate expiry = failure == OrderValidationCode.EXPIRY_DATE_INVALID ? date.minusMonths(1 + random.nextInt(24)) : date.plusMonths(random.nextInt(36));
+        String cvv = failure == OrderValidationCode.CVV_INVALID
+                ? (random.nextBoolean() ? String.format("%02d", random.nextInt(100)) : String.format("%04d", random.nextInt(10_000)))
+                : String.format("%03d", random.nextInt(1000));
+        CreditCardInformation card = new CreditCardInformation(cardNumber, expiry.format(EXPIRY_FORMAT), cvv);
+        return new Order(String.format("%08X", nextOrderNumber++), date, OrderStatus.UNDEFINED, OrderValidationCode.UNDEFINED,
+                totalInPence, pizzas, card);
+    }
+
+    // Generate a 16 digit card number whose Luhn check digit is right, or wrong when asked for an invalid number
+    private String cardNumber(boolean invalid) {
+        StringBuilder number = new StringBuilder("4");
+        int sum = 0;
+        for (int i = 1; i < 15; i++) {
+            number.append((char) ('0' + random.nextInt(10)));
+        }
+        // Double every second digit counting leftwards from the check digit
+        for (int i = 0; i < 15; i++) {
+            int digit = number.charAt(14 - i) - '0';
+            if (i % 2 == 0) {
+                digit *= 2;
+            }
+            sum += digit / 10 + digit % 10;
+        }
+        int checkDigit = (10 - sum % 10) % 10;
+        if (invalid) {
+            checkDigit = (checkDigit + 1 + random.nextInt(9)) % 10;
+        }
+        return number.append((char) ('0' + checkDigit)).toString();
+    }
+
+    // Build a closed star-shaped polygon around a circle's centre, with its corners at jittered angles and radii
+    private LngLat[] starPolygon(double[] circle, int vertexCount) {
+        LngLat[] vertices = new LngLat[vertexCount + 1];
+        double step = 2 * Math.PI / vertexCount;
+        double rotation = random.nextDouble() * step;
+        for (int k = 0; k < vertexCount; k++) {
+            double angle = rotation + k * step + (random.nextDouble() - 0.5) * 0.8 * step;
+            double distance = circle[2] * (0.6 + 0.4 * random.nextDouble());
+            vertices[k] = new LngLat(circle[0] + distance * Math.cos(angle), circle[1] + distance * Math.sin(angle));
+        }
+        // Repeat the first corner at the end, as the REST service does
+        vertices[vertexCount] = vertices[0];
+        return vertices;
+    }
+
+    // Check if a circle keeps CLEARANCE from the delivery point and from every circle given
+    private static boolean isClear(double lng, double lat, double radius, List<double[]> circles) {
+        if (Math.hypot(lng - PathManager.DELIVERY_POINT.lng(), lat - PathManager.DELIVERY_POINT.lat()) < radius + CLEARANCE) {
+            return false;
+        }
+        for (double[] circle : circles) {
+            if (Math.hypot(lng - circle[0], lat - circle[1]) < radius + circle[2] + CLEARANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Find a circle holding every vertex, centred on the middle of their bounding box
+    private static double[] boundingCircle(LngLat[] vertices) {
+        double minLng = Double.MAX_VALUE, minLat = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        for (LngLat vertex : vertices) {
+            minLng = Math.min(minLng, vertex.lng());
+            minLat = Math.min(minLat, vertex.lat());
+            maxLng = Math.max(maxLng, vertex.lng());
+            maxLat = Math.max(maxLat, vertex.lat());
+        }
+        double[] circle = {(minLng + maxLng) / 2, (minLat + maxLat) / 2, 0};
+        for (LngLat vertex : vertices) {
+            circle[2] = Math.max(circle[2], Math.hypot(vertex.lng() - circle[0], vertex.lat() - circle[1]));
+        }
+        return circle;
+    }
+
+    // Parse failure shares written as CODE=share,CODE=share, such as CVV_INVALID=0.05,TOTAL_INCORRECT=0.1
+    public static Map<OrderValidationCode, Double> parseFailureShares(String shares) {
+        Map<OrderValidationCode, Double> failureShares = new EnumMap<>(OrderValidationCode.class);
+        for (String share : shares.split(",")) {
+            String[] parts = share.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected CODE=share but got " + share + ".");
+            }
+            try {
+                failureShares.put(OrderValidationCode.valueOf(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The share of " + parts[0] + " must be a number.", e);
+            }
+        }
+        return failureShares;
+    }
+
+    // Write a fixture directory that App can replay in place of the service URL, with the given number of orders on each day
+    // from the start date to the end date inclusive: java uk.ac.ed.inf.LoadGenerator DIR START_DATE END_DATE ORDERS_PER_DAY
+    // The layout is set with -Dload.zones, -Dload.vertices, -Dload.restaurants, -Dload.menu and -Dload.seed, and the failures
+    // with -Dload.failures=CODE=share,...; by default a quarter of the orders are invalid, spread evenly over FAILURES
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            throw new IllegalArgumentException("Argument count error: Expected the directory, start date, end date and orders per day.");
+        }
+        Path directory = Path.of(args[0]);
+        LocalDate firstDay = LocalDate.parse(args[1]);
+        LocalDate lastDay = LocalDate.parse(args[2]);
+        int ordersPerDay = Integer.parseInt(args[3]);
+        Map<OrderValidationCode, Double> failureShares = new EnumMap<>(OrderValidationCode.class);
+        String shares = System.getProperty("load.failures");
+        if (shares != null) {
+            failureShares = parseFailureShares(shares);
+        } else {
+            for (OrderValidationCode failure : FAILURES) {
+                failureShares.put(failure, 0.25 / FAILURES.size());
+            }
+        }
+
+        long start = System.nanoTime();
+        LoadGenerator generator = new LoadGenerator(Long.getLong("load.seed", 42));
+        NamedRegion[] noFlyZones = generator.noFlyZones(Integer.getInteger("load.zones", 4), Integer.getInteger("load.vertices", 5));
+        Restaurant[] restaurants = generator.restaurants(Integer.getInteger("load.restaurants", 7), Integer.getInteger("load.menu", 2), noFlyZones);
+        Files.createDirectories(directory);
+        RecordingDataSource.writeFixture(directory.resolve(ReplayDataSource.RESTAURANTS_FILE), restaurants);
+        RecordingDataSource.writeFixture(directory.resolve(ReplayDataSource.NO_FLY_ZONES_FILE), noFlyZones);
+        RecordingDataSource.writeFixture(directory.resolve(ReplayDataSource.CENTRAL_AREA_FILE), CENTRAL_AREA);
+        int days = 0;
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            Order[] orders = generator.orders(restaurants, day, ordersPerDay, failureShares);
+            RecordingDataSource.writeFixture(ReplayDataSource.ordersFile(directory, day.toString()), orders);
+            days++;
+        }
+        System.out.println("Generated " + restaurants.length + " restaurants, " + noFlyZones.length + " no-fly zones and "
+                + ((long) days * ordersPerDay) + " orders over " + days + " days in " + directory + " in "
+                + ((double) (System.nanoTime() - start) / 1_000_000) + " ms");
+    }
+}
@@ -5,7 +5,6 @@ import uk.ac.ed.inf.ilp.data.NamedRegion;
 import uk.ac.ed.inf.ilp.interfaces.LngLatHandling;
 
 import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_IS_CLOSE_DISTANCE;
-import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
 
 // Define a class to handle operations related to longitude and latitude, implementing the LngLatHandling interface
 public class LongitudeAndLatitudeHandler implements LngLatHandling {
@@ -16,7 +15,7 @@ public class LongitudeAndLatitudeHandler implements LngLatHandling {
     @Override
     public double distanceTo(LngLat startPosition, LngLat endPosition) {
         // Calculate and return the Euclidean distance between two points
-        return Math.sqrt(Math.pow(endPosition.lng() - startPosition.lng(), 2) + Math.pow(startPosition.lat() - endPosition.lat(), 2));
+        return GeometryKernel.distance(startPosition.lng(), startPosition.lat(), endPosition.lng(), endPosition.lat());
     }
 
     // Override the isCloseTo method from the LngLatHandling interface
@@ -48,6 +47,7 @@ public class LongitudeAndLatitudeHandler implements LngLatHandling {
         }
 
         // Calculate and return the new position after moving a DRONE_MOVE_DISTANCE in the specified angle from the start position
-        return new LngLat(startPosition.lng() + DRONE_MOVE_DISTANCE * Math.cos(Math.toRadians(angle)), startPosition.lat() + DRONE_MOVE_DISTANCE * Math.sin(Math.toRadians(angle)));
+        int angleIndex = (int) (angle / GeometryKernel.ANGLE_STEP);
+        return new LngLat(GeometryKernel.nextLng(startPosition.lng(), angleIndex), GeometryKernel.nextLat(startPosition.lat(), angleIndex));
     }
 }
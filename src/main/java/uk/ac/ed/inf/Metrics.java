@@ -0,0 +1,294 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Define a registry of named counters and histograms for instrumenting a run, written out as JSON and optionally exposed through JMX
+// Recording only touches striped LongAdders, so instrumented hot paths stay cheap even when many threads record at once
+public final class Metrics {
+    private static final Metrics GLOBAL = new Metrics();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    // Get the registry shared by the whole program
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    // Get the counter with the given name, creating it on first use; callers on hot paths should keep the returned counter
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    // Get the histogram with the given name, creating it on first use; callers on hot paths should keep the returned histogram
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    // Reset every counter and histogram to zero, keeping the handles that callers hold valid
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    // A count of events
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        // Count one event
+        public void increment() {
+            value.increment();
+        }
+
+        // Count several events at once
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        // Get the number of events counted
+        public long get() {
+            return value.sum();
+        }
+
+        private void reset() {
+            value.reset();
+        }
+    }
+
+    // A distribution of non-negative values, such as durations in nanoseconds, kept in log-linear buckets
+    // Each power of two is split into SUB_BUCKETS equal buckets, and values below SUB_BUCKETS get a bucket each,
+    // so a percentile estimated as the upper bound of its bucket is within 1 / SUB_BUCKETS of the true value
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // Values up to 2^63 - 1 have their highest bit at most at position 62
+        private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        // Record one value; negative values are recorded as zero
+        public void record(long value) {
+            long recorded = Math.max(0, value);
+            count.increment();
+            sum.add(recorded);
+            max.accumulate(recorded);
+            buckets[bucketOf(recorded)].increment();
+        }
+
+        // Record the time elapsed since a System.nanoTime() reading
+        public void recordNanosSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        // Get the number of values recorded
+        public long getCount() {
+            return count.sum();
+        }
+
+        // Get the sum of the values recorded
+        public long getSum() {
+            return sum.sum();
+        }
+
+        // Get the largest value recorded, or zero if there are none
+        public long getMax() {
+            return max.get();
+        }
+
+        // Get the mean of the values recorded, or zero if there are none
+        public double getMean() {
+            long values = getCount();
+            return values == 0 ? 0 : (double) getSum() / values;
+        }
+
+        // Estimate the value below which the given fraction of the recorded values fall
+        public long getPercentile(double fraction) {
+            long values = getCount();
+            if (values == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * values);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return Math.min(getMax(), upperBoundOf(i));
+                }
+            }
+            return getMax();
+        }
+
+        // Find the bucket of a value: below SUB_BUCKETS the value itself, above it the power of two and the sub-bucket
+        // given by the SUB_BUCKET_BITS bits after the highest set bit
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        // Get the largest value that falls in a bucket
+        private static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lowerBound + (1L << shift) - 1;
+        }
+
+        private void reset() {
+            count.reset();
+            sum.reset();
+            max.reset();
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+    }
+
+    // Write every counter and histogram to a JSON file, sorted by name
+    public void writeJson(Path file) throws IOException {
+        try (OutputStream output = Files.newOutputStream(file)) {
+            writeJson(output);
+        }
+    }
+
+    // Write every counter and histogram as JSON to a stream, leaving the stream open
+    public void writeJson(OutputStream output) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("counters");
+            for (Map.Entry<String, Counter> counter : new TreeMap<>(counters).entrySet()) {
+                generator.writeNumberField(counter.getKey(), counter.getValue().get());
+            }
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("histograms");
+            for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+                Histogram histogram = entry.getValue();
+                generator.writeObjectFieldStart(entry.getKey());
+                generator.writeNumberField("count", histogram.getCount());
+                generator.writeNumberField("sum", histogram.getSum());
+                generator.writeNumberField("mean", histogram.getMean());
+                generator.writeNumberField("p50", histogram.getPercentile(0.50));
+                generator.writeNumberField("p90", histogram.getPercentile(0.90));
+                generator.writeNumberField("p99", histogram.getPercentile(0.99));
+                generator.writeNumberField("max", histogram.getMax());
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    // Expose the metrics through the platform MBean server as uk.ac.ed.inf:type=Metrics, one attribute per counter and histogram statistic
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("uk.ac.ed.inf:type=Metrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics MBean.", e);
+        }
+    }
+
+    // Define a read-only dynamic MBean whose attributes follow the metrics as they are created
+    private final class MetricsMBean implements DynamicMBean {
+        // Collect the current value of every attribute, named like "counter.name" and "histogram.name.p99"
+        private Map<String, Object> attributes() {
+            Map<String, Object> attributes = new TreeMap<>();
+            counters.forEach((name, counter) -> attributes.put(name, counter.get()));
+            histograms.forEach((name, histogram) -> {
+                attributes.put(name + ".count", histogram.getCount());
+                attributes.put(name + ".mean", histogram.getMean());
+                attributes.put(name + ".p50", histogram.getPercentile(0.50));
+                attributes.put(name + ".p99", histogram.getPercentile(0.99));
+                attributes.put(name + ".max", histogram.getMax());
+            });
+            return attributes;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = attributes().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException("No metric named " + attribute + ".");
+            }
+            return value;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only.");
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            Map<String, Object> attributes = attributes();
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                if (attributes.containsKey(name)) {
+                    list.add(new Attribute(name, attributes.get(name)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "The metrics MBean has no operations.");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> infos = new ArrayList<>();
+            attributes().forEach((name, value) -> infos.add(new MBeanAttributeInfo(name, value.getClass().getName(), name, true, false, false)));
+            return new MBeanInfo(Metrics.class.getName(), "PizzaDronz run metrics", infos.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
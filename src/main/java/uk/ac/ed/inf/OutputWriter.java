@@ -0,0 +1,131 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import uk.ac.ed.inf.ilp.data.Order;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Define streaming writers for the result files, producing the same values as App's helper methods
+// The GeoJSON matches them byte for byte; the deliveries and flight path keep their keys in the order written,
+// where org.json's objects have no fixed key order, so those match value for value rather than byte for byte
+// Each value is written straight to a buffered file channel as it is read, so memory use does not grow with the file
+public final class OutputWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private OutputWriter() {
+    }
+
+    // Write the delivery outcome of every order
+    public static void writeDeliveries(Order[] orders, Path file) throws IOException {
+        try (OutputStream output = openFile(file)) {
+            writeDeliveries(orders, output);
+        }
+    }
+
+    // Write the delivery outcome of every order to a stream, leaving the stream open
+    public static void writeDeliveries(Order[] orders, OutputStream output) throws IOException {
+        try (JsonGenerator generator = openGenerator(output)) {
+            generator.writeStartArray();
+            for (Order order : orders) {
+                generator.writeStartObject();
+                generator.writeStringField("orderNo", order.getOrderNo());
+                generator.writeStringField("orderStatus", order.getOrderStatus().name());
+                generator.writeStringField("orderValidationCode", order.getOrderValidationCode().name());
+                generator.writeNumberField("costInPence", order.getPriceTotalInPence());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    // Write every move of the flight path with its order number, start, angle and end
+    public static void writeFlightpath(Iterable<Movement> moves, Path file) throws IOException {
+        try (OutputStream output = openFile(file)) {
+            writeFlightpath(moves, output);
+        }
+    }
+
+    // Write every move of the flight path to a stream, leaving the stream open
+    public static void writeFlightpath(Iterable<Movement> moves, OutputStream output) throws IOException {
+        try (JsonGenerator generator = openGenerator(output)) {
+            generator.writeStartArray();
+            for (Movement move : moves) {
+                generator.writeStartObject();
+                // org.json leaves out keys whose value is null, so a move without an order has no order number
+                if (move.getOrderNumber() != null) {
+                    generator.writeStringField("orderNo", move.getOrderNumber());
+                }
+                writeNumberField(generator, "fromLongitude", move.getStart().lng());
+                writeNumberField(generator, "fromLatitude", move.getStart().lat());
+                writeNumberField(generator, "angle", move.getAngle());
+                writeNumberField(generator, "toLongitude", move.getEnd().lng());
+                writeNumberField(generator, "toLatitude", move.getEnd().lat());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    // Write the flight path as a GeoJSON feature collection holding a single line string
+    public static void writeGeoJson(Iterable<Movement> moves, Path file) throws IOException {
+        try (OutputStream output = openFile(file)) {
+            writeGeoJson(moves, output);
+        }
+    }
+
+    // Write the flight path as GeoJSON to a stream, leaving the stream open
+    public static void writeGeoJson(Iterable<Movement> moves, OutputStream output) throws IOException {
+        try (JsonGenerator generator = openGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "FeatureCollection");
+            generator.writeArrayFieldStart("features");
+            generator.writeStartObject();
+            generator.writeStringField("type", "Feature");
+            generator.writeStringField("properties", "NULL");
+            generator.writeObjectFieldStart("geometry");
+            generator.writeStringField("type", "LineString");
+            generator.writeArrayFieldStart("coordinates");
+            for (Movement move : moves) {
+                generator.writeStartArray();
+                generator.writeNumber(move.getStart().lng());
+                generator.writeNumber(move.getStart().lat());
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    // Write a double field as org.json writes it, dropping the ".0" of whole numbers so the hover angle is 999 rather than 999.0
+    private static void writeNumberField(JsonGenerator generator, String name, double value) throws IOException {
+        String text = Double.toString(value);
+        if (text.endsWith(".0")) {
+            text = text.substring(0, text.length() - 2);
+        }
+        generator.writeFieldName(name);
+        generator.writeNumber(text);
+    }
+
+    // Open a buffered channel to the file, replacing any existing file
+    private static OutputStream openFile(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    }
+
+    // Open a UTF-8 JSON generator over a stream; closing the generator flushes it but leaves the stream open
+    private static JsonGenerator openGenerator(OutputStream output) throws IOException {
+        return JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+}
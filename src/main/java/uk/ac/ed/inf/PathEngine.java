@@ -0,0 +1,21 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.List;
+
+// Define the contract for a route planner that walks the 16-direction move lattice
+public interface PathEngine {
+    // Calculate a path from the start location until the drone is close to the target, ending with a hover move (angle 999)
+    // The work done during the search is recorded into the given statistics
+    List<Movement> calculatePath(LngLat startLocation, LngLat targetLocation, String orderNumber, SearchStatistics statistics);
+
+    // Note that a cached path uses its endpoints, so anything kept about them is kept until the path is forgotten again
+    // Engines that keep nothing per endpoint ignore this
+    default void retainEndpoints(LngLat startLocation, LngLat targetLocation) {
+    }
+
+    // Drop anything kept about the endpoints of a path that is no longer cached, once no other retained path uses them
+    default void forgetEndpoints(LngLat startLocation, LngLat targetLocation) {
+    }
+}
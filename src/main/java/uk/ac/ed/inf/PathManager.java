@@ -5,135 +5,402 @@ import uk.ac.ed.inf.ilp.data.Order;
 import uk.ac.ed.inf.ilp.data.Restaurant;
 import uk.ac.ed.inf.ilp.data.LngLat;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static uk.ac.ed.inf.ilp.constant.OrderStatus.DELIVERED;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.MAX_PIZZAS_PER_ORDER;
 
 // Define a class to manage paths for delivery drones, including avoiding no-fly zones and navigating to destinations
 public class PathManager {
+    // The fixed delivery point (Appleton Tower) that every order is flown back to
+    public static final LngLat DELIVERY_POINT = new LngLat(-3.186874, 55.944494);
+
     // Declare variables for no-fly zones, central area, restaurants, and orders
-    private final NamedRegion[] noFlyZones;
+    private NamedRegion[] noFlyZones;
     private final NamedRegion centralArea;
     private final Restaurant[] restaurants;
     private final List<Order> orders;
+    // Index over the no-fly zones and central area, shared by the path engine and rebuilt when the zones change
+    private volatile RegionIndex regionIndex;
+    // The planner and engine used to calculate new paths
+    private final PlannerMode plannerMode;
+    private volatile PathEngine pathEngine;
+    // Optional persistent store of paths planned in earlier runs
+    private RouteStore routeStore = null;
+    // Running totals used to compare planners
+    private final AtomicLong planningNanos = new AtomicLong();
+    // The number of paths calculated so far and the totals of their search statistics, guarded by plannedStatistics
+    private final SearchStatistics plannedStatistics = new SearchStatistics();
+    private int routesPlanned = 0;
+    // Validator whose menu index gives each order's restaurant
+    private ValidateOrder orderValidator;
+    // Whether distinct routes are planned concurrently before the movements are assembled
+    private boolean parallelPlanning = false;
+    // Most pizzas carried on one trip when orders from the same restaurant are batched, or 0 to fly every order separately
+    private int batchCapacity = 0;
+
+    // Instrumentation of the route store and the path engine; the route cache counts its own hits, misses and evictions
+    private static final Metrics.Counter STORE_HITS = Metrics.global().counter("routeStore.hits");
+    private static final Metrics.Histogram CALCULATE_PATH_NANOS = Metrics.global().histogram("planner.calculatePath.nanos");
+    private static final Metrics.Histogram NODES_EXPANDED = Metrics.global().histogram("planner.nodesExpanded");
+    // Counts of the moves the path engines checked against the zones and of the polygon tests those checks needed,
+    // added once per planned route from its search statistics
+    private static final Metrics.Counter MOVE_CHECKS = Metrics.global().counter("geometry.moveChecks");
+    private static final Metrics.Counter POLYGON_TESTS = Metrics.global().counter("geometry.polygonTests");
+
+    // A bounded, thread-safe cache of calculated routes for reuse
+    private RouteCache routeCache;
+    // Spatial index over the moves of the cached routes, filled in when the zones change
+    private final RouteSegmentIndex<RouteCache.Key> segmentIndex = new RouteSegmentIndex<>();
 
-    // A HashMap to store calculated paths for reuse
-    private final HashMap<String, List<Movement>> paths = new HashMap<>();
+    // The outcome of switching to new no-fly zones: how many zones were added or changed and removed,
+    // how many cached routes were tested against the new zones, and how many of them had to be re-planned
+    public record ZoneUpdate(int changedZones, int removedZones, int routesChecked, int routesReplanned, long nanos) {
+    }
 
     // Constructor to initialize the PathManager with necessary data
     public PathManager(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, List<Order> orders) {
+        this(noFlyZones, centralArea, restaurants, orders, PlannerMode.GREEDY);
+    }
+
+    // Constructor to initialize the PathManager with the planner that should calculate new paths
+    public PathManager(NamedRegion[] noFlyZones, NamedRegion centralArea, Restaurant[] restaurants, List<Order> orders, PlannerMode plannerMode) {
         this.noFlyZones = noFlyZones;
         this.centralArea = centralArea;
         this.restaurants = restaurants;
         this.orders = orders;
+        this.regionIndex = new RegionIndex(noFlyZones, centralArea);
+        this.plannerMode = plannerMode;
+        this.pathEngine = plannerMode.createEngine(regionIndex);
+        this.orderValidator = new ValidateOrder(restaurants);
+        setRouteCache(new RouteCache());
     }
 
     // Method to find the location of the restaurant associated with a given order
     private LngLat restaurantLocation(Order order) {
-        // Loop through each restaurant and check if it serves all pizzas in the order
-        for (Restaurant restaurant : restaurants) {
-            if (ValidateOrder.findNumberOfOrderListPizzasInMenu(
-                    Arrays.stream(order.getPizzasInOrder()).toList(),
-                    Arrays.stream(restaurant.menu()).toList()
-            ) == order.getPizzasInOrder().length) {
-                return restaurant.location(); // Return the location of the matching restaurant
-            }
+        // Look the restaurant up in the validator's menu index
+        Restaurant restaurant = orderValidator.getRestaurant(order);
+        if (restaurant == null) {
+            throw new IllegalArgumentException("The order cannot be associated with any available restaurant.");
+        }
+        return restaurant.location();
+    }
+
+    // Share the validator that validated the orders, so its menu index is reused to find each order's restaurant
+    public void setOrderValidator(ValidateOrder orderValidator) {
+        this.orderValidator = orderValidator;
+    }
+
+    // Attach a persistent store that is checked before planning a path and receives every newly planned path
+    public void setRouteStore(RouteStore routeStore) {
+        this.routeStore = routeStore;
+    }
+
+    // Get the persistent store in use, which changes when the no-fly zones do, or null if there is none
+    public RouteStore getRouteStore() {
+        return routeStore;
+    }
+
+    // Replace the route cache, such as with one of different bounds, before any routes are determined
+    public void setRouteCache(RouteCache routeCache) {
+        // The path engine keeps what it knows about a route's endpoints for as long as the route is cached
+        // Both listeners run under the cache's lock, so a route is always retained before it can be evicted
+        routeCache.setInsertionListener(key -> pathEngine.retainEndpoints(key.target(), key.source()));
+        routeCache.setEvictionListener(key -> {
+            segmentIndex.remove(key);
+            pathEngine.forgetEndpoints(key.target(), key.source());
+        });
+        this.routeCache = routeCache;
+    }
+
+    // Choose whether determineRoutes plans the distinct restaurant routes concurrently
+    public void setParallelPlanning(boolean parallelPlanning) {
+        this.parallelPlanning = parallelPlanning;
+    }
+
+    // Batch orders from the same restaurant into shared trips of at most the given number of pizzas, or fly each order separately with 0
+    // A trip must hold at least as many pizzas as the largest valid order, or such an order could never be flown
+    public void setBatchCapacity(int pizzasPerTrip) {
+        if (pizzasPerTrip < 0 || (pizzasPerTrip > 0 && pizzasPerTrip < MAX_PIZZAS_PER_ORDER)) {
+            throw new IllegalArgumentException("The batch capacity must be 0, or at least " + MAX_PIZZAS_PER_ORDER
+                    + " pizzas, the most a valid order may hold.");
         }
-        throw new IllegalArgumentException("The order cannot be associated with any available restaurant.");
+        this.batchCapacity = pizzasPerTrip;
     }
 
     // Method to determine the routes for all orders
-    public List<Movement> determineRoutes() {
+    public FlightPath determineRoutes() {
+        return determineRoutes(orders);
+    }
+
+    // Method to determine the routes for another list of orders, such as a later day, reusing every route cached so far
+    public FlightPath determineRoutes(List<Order> orders) {
+        if (parallelPlanning) {
+            planRestaurantRoutesInParallel(orders);
+        }
+
+        List<FlightPath.Leg> legs = new ArrayList<>();
+        // Look up the route for each trip and mark its orders as delivered; the movements are only built when the flight path is read
+        for (List<Order> trip : planTrips(orders)) {
+            List<String> orderNumbers = new ArrayList<>(trip.size());
+            for (Order order : trip) {
+                orderNumbers.add(order.getOrderNo());
+                order.setOrderStatus(DELIVERED);
+            }
+            legs.add(new FlightPath.Leg(findRoute(restaurantLocation(trip.get(0)), DELIVERY_POINT), orderNumbers));
+        }
+        return new FlightPath(legs); // Return the complete list of movements for all routes
+    }
+
+    // Group the orders into trips, in the order of each trip's first order
+    // Without batching every order is its own trip; with it, orders join the open trip of their restaurant until the next would exceed the capacity
+    private List<List<Order>> planTrips(List<Order> orders) {
+        List<List<Order>> trips = new ArrayList<>();
+        if (batchCapacity == 0) {
+            for (Order order : orders) {
+                trips.add(List.of(order));
+            }
+            return trips;
+        }
+        Map<LngLat, List<Order>> openTrips = new HashMap<>();
+        Map<LngLat, Integer> openTripPizzas = new HashMap<>();
+        for (Order order : orders) {
+            LngLat location = restaurantLocation(order);
+            int pizzas = order.getPizzasInOrder().length;
+            List<Order> trip = openTrips.get(location);
+            if (trip == null || openTripPizzas.get(location) + pizzas > batchCapacity) {
+                trip = new ArrayList<>();
+                trips.add(trip);
+                openTrips.put(location, trip);
+                openTripPizzas.put(location, 0);
+            }
+            trip.add(order);
+            openTripPizzas.merge(location, pizzas, Integer::sum);
+        }
+        return trips;
+    }
 
-        List<Movement> routes = new ArrayList<>();
-        // Calculate the path for each order and mark it as delivered
+    // Plan the route of every restaurant that has orders on the ForkJoinPool, filling the path cache
+    private void planRestaurantRoutesInParallel(List<Order> orders) {
+        Set<LngLat> restaurantLocations = new LinkedHashSet<>();
         for (Order order : orders) {
-            routes.addAll(calculateTotalPath(restaurantLocation(order),
-                    new LngLat(-3.186874, 55.944494), order.getOrderNo()));// The LngLat seems to be a fixed delivery point
-            order.setOrderStatus(DELIVERED);
+            restaurantLocations.add(restaurantLocation(order));
+        }
+        List<Callable<Route>> tasks = new ArrayList<>();
+        for (LngLat location : restaurantLocations) {
+            tasks.add(() -> findRoute(location, DELIVERY_POINT));
+        }
+        runInParallel(tasks);
+    }
+
+    // Run route planning tasks on the ForkJoinPool and wait for all of them, rethrowing the first failure
+    private static void runInParallel(List<Callable<Route>> tasks) {
+        try {
+            for (Future<Route> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Route planning was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Route planning failed.", e.getCause());
         }
-        return routes; // Return the complete list of movements for all routes
     }
 
     // Method to calculate the total path for a single delivery from a source to a target
     public List<Movement> calculateTotalPath(LngLat sourceLocation, LngLat targetLocation, String orderNumber) {
+        return new FlightPath(List.of(new FlightPath.Leg(findRoute(sourceLocation, targetLocation), orderNumber)));
+    }
+
+    // Find the route flown out from the target to the source, which the drone flies there and back for a delivery
+    public Route findRoute(LngLat sourceLocation, LngLat targetLocation) {
         // Create a unique key for the path to check if it's already calculated
-        String key = "Key : " + sourceLocation.lng() + sourceLocation.lat() + targetLocation.lng() + targetLocation.lat();
-        if (paths.containsKey(key)) {
-            // If path is already calculated, return a copy with the current order number
-            List<Movement> result = new ArrayList<>();
-            for (Movement move : paths.get(key)) {
-                result.add(new Movement(move.getStart(), move.getAngle(), move.getEnd(), orderNumber));
-            }
-            return result;
+        RouteCache.Key key = new RouteCache.Key(sourceLocation, targetLocation);
+        Route cachedRoute = routeCache.get(key);
+        if (cachedRoute != null) {
+            return cachedRoute;
+        }
+        // If path is not calculated, reuse one stored by an earlier run or determine a new path
+        Route route = routeStore == null ? null : routeStore.find(plannerMode, targetLocation, sourceLocation);
+        if (route == null) {
+            long planningStart = System.nanoTime();
+            SearchStatistics statistics = new SearchStatistics();
+            route = Route.fromPath(targetLocation, pathEngine.calculatePath(targetLocation, sourceLocation, null, statistics));
+            long elapsed = System.nanoTime() - planningStart;
+            planningNanos.addAndGet(elapsed);
+            CALCULATE_PATH_NANOS.record(elapsed);
+            NODES_EXPANDED.record(statistics.getNodesExpanded());
+            MOVE_CHECKS.add(statistics.getMoveChecks());
+            POLYGON_TESTS.add(statistics.getPolygonTests());
+            synchronized (plannedStatistics) {
+                routesPlanned++;
+                plannedStatistics.add(statistics);
+            }
+            if (routeStore != null) {
+                routeStore.put(plannerMode, sourceLocation, route);
+            }
         } else {
-            // If path is not calculated, determine a new path
-            List<Movement> path = calculatePath(targetLocation, sourceLocation, orderNumber);
-            ArrayList<Movement> moveList = new ArrayList<>();
-            for (Movement move : path) {
-                if (move.getAngle() == 999) {
-                    continue; // Skip the moves with angle 999 (indicating arrival or invalid movement)
-                }
-                moveList.add(new Movement(move.getEnd(), (move.getAngle() + 180) % 360, move.getStart(), orderNumber));
-            }
-            Collections.reverse(moveList); // Reverse the order of movements for return trip
-            moveList.add(new Movement(moveList.get(moveList.size() - 1).getEnd(), 999, moveList.get(moveList.size() - 1).getEnd(), orderNumber));
-            path.addAll(moveList); // Add the return movements to the path
-            paths.put(key, path); // Cache the path for future use
-        }
-        return paths.get(key); // Return the calculated or retrieved path
-    }
-
-    // Helper method to calculate a path from one location to another
-    private List<Movement> calculatePath(LngLat location1, LngLat location2, String orderNumber) {
-        // Initialize variables for path calculation
-        List<LngLat> previousMovement = new ArrayList<>();
-        LongitudeAndLatitudeHandler lngLatHandler = new LongitudeAndLatitudeHandler();
-        LngLat currentPosition = location1;
-        ArrayList<Movement> path = new ArrayList<>();
-        double[] angles = new double[16]; // Array to hold possible movement angles
-        for (int i = 0; i < 16; i++) {
-            angles[i] = i * 22.5; // Populate angles by 22.5 degrees increments
-        }
-        double tempAngle = 0;
-        double distance;
-
-        // Continue calculating path until the drone is close to the target
-        while (!lngLatHandler.isCloseTo(currentPosition, location2)) {
-            double closestDistance = Double.MAX_VALUE;
-            // Iterate through all possible angles to find the closest next position
-            for (double angle : angles) {
-                LngLat nextPosition = lngLatHandler.nextPosition(currentPosition, angle);
-                // Ensure the drone doesn't retrace its steps and avoids no-fly zones
-                if (!previousMovement.contains(new LngLat(nextPosition.lng(), nextPosition.lat()))) {
-                    boolean isCurrentPositionInCentralArea = lngLatHandler.isInCentralArea(currentPosition, centralArea);
-                    boolean isNextPositionInCentralArea = lngLatHandler.isInCentralArea(nextPosition, centralArea);
-                    boolean isDroneInNoFlyZone = false;
-
-                    for (NamedRegion noFlyZone : this.noFlyZones) {
-                        if (lngLatHandler.isInRegion(nextPosition, noFlyZone)) {
-                            isDroneInNoFlyZone = true; // Check if the next position is in any no-fly zone
-                            break;
-                        }
-                    }
-                    // Update path if next position is valid
-                    if (!isDroneInNoFlyZone) {
-                        if (isCurrentPositionInCentralArea || !isNextPositionInCentralArea) {
-                            distance = lngLatHandler.distanceTo(nextPosition, location2);
-                            if (distance < closestDistance) {
-                                closestDistance = distance;
-                                tempAngle = angle; // Update the angle leading to the closest position
-                            }
-                        }
-                    }
-                    previousMovement.add(new LngLat(nextPosition.lng(), nextPosition.lat())); // Remember this movement
-                }
-            }
-            // Add the movement to the path and update the current position
-            path.add(new Movement(currentPosition, tempAngle, lngLatHandler.nextPosition(currentPosition, tempAngle), orderNumber));
-            currentPosition = lngLatHandler.nextPosition(currentPosition, tempAngle);
-        }
-        path.add(new Movement(currentPosition, 999, currentPosition, orderNumber));
-        return path;// Return the calculated path
+            STORE_HITS.increment();
+        }
+        // Cache the route for future use; if another thread cached the same route first, use that one instead
+        Route existingRoute = routeCache.putIfAbsent(key, route);
+        return existingRoute != null ? existingRoute : route;
+    }
+
+    // Switch to new no-fly zones, re-planning only the cached routes that cross a zone which was added or changed
+    // Routes clear of every new or changed zone stay legal and are kept; this must not run while routes are being determined
+    public ZoneUpdate updateNoFlyZones(NamedRegion[] newNoFlyZones) throws IOException {
+        long updateStart = System.nanoTime();
+        List<NamedRegion> changedZones = new ArrayList<>();
+        for (NamedRegion zone : newNoFlyZones) {
+            if (!containsZone(noFlyZones, zone)) {
+                changedZones.add(zone);
+            }
+        }
+        int removedZones = 0;
+        for (NamedRegion zone : noFlyZones) {
+            if (!containsZone(newNoFlyZones, zone)) {
+                removedZones++;
+            }
+        }
+        if (changedZones.isEmpty() && removedZones == 0) {
+            return new ZoneUpdate(0, 0, 0, 0, System.nanoTime() - updateStart);
+        }
+
+        noFlyZones = newNoFlyZones;
+        regionIndex = new RegionIndex(newNoFlyZones, centralArea);
+        pathEngine = plannerMode.createEngine(regionIndex);
+        // The new engine keeps nothing yet, so it retains the endpoints of every route still cached
+        for (Map.Entry<RouteCache.Key, Route> entry : routeCache.entries()) {
+            pathEngine.retainEndpoints(entry.getKey().target(), entry.getKey().source());
+        }
+        // The store holds routes planned for the old zones, so switch to the routes stored for the new ones
+        if (routeStore != null) {
+            routeStore = routeStore.reopen(newNoFlyZones, centralArea);
+        }
+        if (changedZones.isEmpty()) {
+            return new ZoneUpdate(0, removedZones, 0, 0, System.nanoTime() - updateStart);
+        }
+
+        // Index the routes cached since the last update, then test only the routes passing near a new or changed zone
+        Map<RouteCache.Key, Route> cachedRoutes = new HashMap<>();
+        for (Map.Entry<RouteCache.Key, Route> entry : routeCache.entries()) {
+            cachedRoutes.put(entry.getKey(), entry.getValue());
+            if (!segmentIndex.contains(entry.getKey())) {
+                segmentIndex.add(entry.getKey(), entry.getValue());
+            }
+        }
+        RegionIndex changedIndex = new RegionIndex(changedZones.toArray(new NamedRegion[0]), centralArea);
+        Set<RouteCache.Key> candidates = new HashSet<>();
+        for (NamedRegion zone : changedZones) {
+            double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE, minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            for (LngLat vertex : zone.vertices()) {
+                minLng = Math.min(minLng, vertex.lng());
+                maxLng = Math.max(maxLng, vertex.lng());
+                minLat = Math.min(minLat, vertex.lat());
+                maxLat = Math.max(maxLat, vertex.lat());
+            }
+            candidates.addAll(segmentIndex.routesNear(minLng, minLat, maxLng, maxLat));
+        }
+        List<RouteCache.Key> invalidRoutes = new ArrayList<>();
+        for (RouteCache.Key key : candidates) {
+            Route route = cachedRoutes.get(key);
+            if (route == null) {
+                // Evicted while the index was being filled
+                segmentIndex.remove(key);
+            } else if (crossesAny(route, changedIndex)) {
+                invalidRoutes.add(key);
+            }
+        }
+
+        // Drop the invalid routes and plan them again against the new zones
+        for (RouteCache.Key key : invalidRoutes) {
+            if (routeCache.remove(key) != null) {
+                pathEngine.forgetEndpoints(key.target(), key.source());
+            }
+            segmentIndex.remove(key);
+        }
+        if (parallelPlanning) {
+            List<Callable<Route>> tasks = new ArrayList<>();
+            for (RouteCache.Key key : invalidRoutes) {
+                tasks.add(() -> findRoute(key.source(), key.target()));
+            }
+            runInParallel(tasks);
+        } else {
+            for (RouteCache.Key key : invalidRoutes) {
+                findRoute(key.source(), key.target());
+            }
+        }
+        return new ZoneUpdate(changedZones.size(), removedZones, candidates.size(), invalidRoutes.size(), System.nanoTime() - updateStart);
+    }
+
+    // Check if a list of zones holds a zone with the same name and vertices
+    private static boolean containsZone(NamedRegion[] zones, NamedRegion zone) {
+        for (NamedRegion candidate : zones) {
+            if (candidate.name().equals(zone.name()) && Arrays.equals(candidate.vertices(), zone.vertices())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Check if any move of a route ends in or cuts across one of the indexed zones
+    private static boolean crossesAny(Route route, RegionIndex zones) {
+        for (int move = 0; move < route.getMoveCount(); move++) {
+            if (zones.crossesNoFlyZone(route.lngAt(move), route.latAt(move), route.lngAt(move + 1), route.latAt(move + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Get the number of paths that had to be calculated rather than reused
+    public int getRoutesPlanned() {
+        synchronized (plannedStatistics) {
+            return routesPlanned;
+        }
+    }
+
+    // Get the cache of calculated routes, with its hit, miss and eviction counts
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    // Get the planner used to calculate new paths
+    public PlannerMode getPlannerMode() {
+        return plannerMode;
+    }
+
+    // Get the most pizzas carried on one trip, or 0 when orders are not batched
+    public int getBatchCapacity() {
+        return batchCapacity;
+    }
+
+    // Get the index over the no-fly zones and central area used for planning
+    public RegionIndex getRegionIndex() {
+        return regionIndex;
+    }
+
+    // Get the search statistics totalled over every path calculated so far
+    public SearchStatistics getPlannedStatistics() {
+        SearchStatistics totals = new SearchStatistics();
+        synchronized (plannedStatistics) {
+            totals.add(plannedStatistics);
+        }
+        return totals;
+    }
+
+    // Get the total time spent calculating new paths, in nanoseconds
+    public long getPlanningNanos() {
+        return planningNanos.get();
     }
 }
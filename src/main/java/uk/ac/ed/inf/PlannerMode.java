@@ -0,0 +1,40 @@
+package uk.ac.ed.inf;
+
+// Define the available path planners that PathManager can use to calculate routes
+public enum PlannerMode {
+    GREEDY(1),
+    ASTAR(1),
+    VISIBILITY(2);
+
+    // Revision of the paths the engine plans, raised whenever a change to the engine makes it plan different paths,
+    // so paths stored by an older revision are never reused
+    private final int revision;
+
+    PlannerMode(int revision) {
+        this.revision = revision;
+    }
+
+    // Get the revision of the paths the engine plans
+    public int getRevision() {
+        return revision;
+    }
+
+    // Create the path engine for this mode over the indexed no-fly zones and central area
+    public PathEngine createEngine(RegionIndex regionIndex) {
+        return switch (this) {
+            case GREEDY -> new GreedyPathEngine(regionIndex);
+            case ASTAR -> new AStarPathEngine(regionIndex);
+            case VISIBILITY -> new VisibilityGraphPathEngine(regionIndex);
+        };
+    }
+
+    // Parse a planner name such as "greedy", "astar" or "visibility", ignoring case
+    public static PlannerMode fromName(String name) {
+        for (PlannerMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown planner: " + name + ". Expected one of greedy, astar, visibility.");
+    }
+}
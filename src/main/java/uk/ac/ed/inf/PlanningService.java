@@ -0,0 +1,287 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Define a resident planning service on the JDK's HTTP server, loading the static data once from the REST service or a fixture directory and keeping the
+// menu index, region index and route cache warm between requests, with the latency of every endpoint recorded in Metrics
+public class PlanningService {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+    // Number of days whose planned orders and flight path are kept for the day endpoints
+    static final int MAX_CACHED_DAYS = 31;
+    // Distance the planning area reaches beyond the restaurants, zones and central area; routes are only planned to points inside it
+    static final double PLANNING_AREA_MARGIN = 0.01;
+
+    private final RestDataSource dataSource;
+    private final Restaurant[] restaurants;
+    private final ValidateOrder orderValidator;
+    private final PathManager pathManager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Bounding box of the restaurants, the no-fly zones and the central area, widened by the margin
+    private final double areaMinLng, areaMinLat, areaMaxLng, areaMaxLat;
+    // The plan of each recently requested day, in least recently used order; a pending future means the day is being planned
+    private final Map<String, CompletableFuture<DayPlan>> dayPlans = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<DayPlan>> eldest) {
+            return size() > MAX_CACHED_DAYS;
+        }
+    };
+
+    // The orders of a day, after validation and delivery, with the flight path that delivers them
+    private record DayPlan(Order[] orders, FlightPath flightPath) {
+    }
+
+    // A request handler that may fail; an IllegalArgumentException becomes a 400 response and anything else a 500
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    // Constructor to load the restaurants, no-fly zones and central area from a data source and bind the server to a port,
+    // with requests handled on a fixed pool of threads and new paths calculated by the given planner
+    public PlanningService(RestDataSource dataSource, int port, int threads, PlannerMode plannerMode) throws IOException, InterruptedException {
+        this.dataSource = dataSource;
+        CompletableFuture<String> alive = dataSource.isAlive();
+        CompletableFuture<Restaurant[]> restaurantsRequest = dataSource.getRestaurants();
+        CompletableFuture<NamedRegion[]> noFlyZonesRequest = dataSource.getNoFlyZones();
+        CompletableFuture<NamedRegion> centralAreaRequest = dataSource.getCentralArea();
+        if (!RestClient.await(alive).equals("true")) {
+            throw new IllegalArgumentException("Unresponsive service: The service is not alive and responsive.");
+        }
+        restaurants = RestClient.await(restaurantsRequest);
+        NamedRegion[] noFlyZones = RestClient.await(noFlyZonesRequest);
+        NamedRegion centralArea = RestClient.await(centralAreaRequest);
+        orderValidator = new ValidateOrder(restaurants);
+        pathManager = new PathManager(noFlyZones, centralArea, restaurants, List.of(), plannerMode);
+        pathManager.setOrderValidator(orderValidator);
+        pathManager.setParallelPlanning(Boolean.getBoolean("parallel"));
+        pathManager.setBatchCapacity(Integer.getInteger("batch.pizzas", 0));
+        pathManager.setRouteCache(new RouteCache(Integer.getInteger("routeCache.routes", RouteCache.DEFAULT_MAX_ROUTES),
+                Long.getLong("routeCache.moves", RouteCache.DEFAULT_MAX_MOVES)));
+
+        List<LngLat> landmarks = new ArrayList<>(List.of(centralArea.vertices()));
+        for (NamedRegion zone : noFlyZones) {
+            landmarks.addAll(List.of(zone.vertices()));
+        }
+        for (Restaurant restaurant : restaurants) {
+            landmarks.add(restaurant.location());
+        }
+        areaMinLng = landmarks.stream().mapToDouble(LngLat::lng).min().orElseThrow() - PLANNING_AREA_MARGIN;
+        areaMaxLng = landmarks.stream().mapToDouble(LngLat::lng).max().orElseThrow() + PLANNING_AREA_MARGIN;
+        areaMinLat = landmarks.stream().mapToDouble(LngLat::lat).min().orElseThrow() - PLANNING_AREA_MARGIN;
+        areaMaxLat = landmarks.stream().mapToDouble(LngLat::lat).max().orElseThrow() + PLANNING_AREA_MARGIN;
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        handle("/validate", "POST", "validate", this::validate);
+        handle("/route", "GET", "route", this::route);
+        handle("/deliveries/", "GET", "deliveries", exchange -> {
+            DayPlan plan = dayPlan(exchange, "/deliveries/");
+            sendJson(exchange, output -> OutputWriter.writeDeliveries(plan.orders(), output));
+        });
+        handle("/flightpath/", "GET", "flightpath", exchange -> {
+            DayPlan plan = dayPlan(exchange, "/flightpath/");
+            sendJson(exchange, output -> OutputWriter.writeFlightpath(plan.flightPath(), output));
+        });
+        handle("/geojson/", "GET", "geojson", exchange -> {
+            DayPlan plan = dayPlan(exchange, "/geojson/");
+            sendJson(exchange, output -> OutputWriter.writeGeoJson(plan.flightPath(), output));
+        });
+        handle("/metrics", "GET", "metrics", exchange -> sendJson(exchange, Metrics.global()::writeJson));
+    }
+
+    // Start accepting requests
+    public void start() {
+        server.start();
+    }
+
+    // Stop accepting requests, give the ones in progress a second to finish and release the threads
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // Get the port the server is bound to, which is chosen by the system when 0 was requested
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Register a handler for one method on a path, recording its latency as the histogram service.<name>.nanos
+    private void handle(String path, String method, String name, Handler handler) {
+        Metrics.Histogram latency = Metrics.global().histogram("service." + name + ".nanos");
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            try {
+                if (!exchange.getRequestMethod().equals(method)) {
+                    sendError(exchange, 405, "Use " + method + " for " + path + ".");
+                } else {
+                    handler.handle(exchange);
+                }
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (Exception e) {
+                sendError(exchange, 500, e.toString());
+            } finally {
+                exchange.close();
+                latency.recordNanosSince(start);
+            }
+        });
+    }
+
+    // Validate the order in the request body and reply with its status and validation code
+    private void validate(HttpExchange exchange) throws IOException {
+        Order order;
+        try (InputStream input = exchange.getRequestBody()) {
+            order = OBJECT_MAPPER.readValue(input, Order.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The request body is not an order: " + e.getMessage(), e);
+        }
+        orderValidator.validateOrder(order, restaurants);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("orderNo", order.getOrderNo());
+        result.put("orderStatus", order.getOrderStatus().name());
+        result.put("orderValidationCode", order.getOrderValidationCode().name());
+        sendJson(exchange, output -> OBJECT_MAPPER.writeValue(output, result));
+    }
+
+    // Reply with the round trip flown for a delivery from a restaurant, given by ?restaurant=name or by ?lng=..&lat=..
+    private void route(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange);
+        LngLat location;
+        if (query.containsKey("restaurant")) {
+            location = null;
+            for (Restaurant restaurant : restaurants) {
+                if (restaurant.name().equals(query.get("restaurant"))) {
+                    location = restaurant.location();
+                }
+            }
+            if (location == null) {
+                throw new IllegalArgumentException("No restaurant named " + query.get("restaurant") + ".");
+            }
+        } else if (query.containsKey("lng") && query.containsKey("lat")) {
+            try {
+                location = new LngLat(Double.parseDouble(query.get("lng")), Double.parseDouble(query.get("lat")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The lng and lat parameters must be numbers.", e);
+            }
+        } else {
+            throw new IllegalArgumentException("Give either the restaurant or the lng and lat parameters.");
+        }
+        // Refuse points no drone may fly to before planning, so a request cannot start a search with no end
+        if (!(location.lng() >= areaMinLng && location.lng() <= areaMaxLng && location.lat() >= areaMinLat && location.lat() <= areaMaxLat)) {
+            throw new IllegalArgumentException("The location " + location + " is outside the planning area.");
+        }
+        if (pathManager.getRegionIndex().isInNoFlyZone(location)) {
+            throw new IllegalArgumentException("The location " + location + " is inside a no-fly zone.");
+        }
+        Route route;
+        try {
+            route = pathManager.findRoute(location, PathManager.DELIVERY_POINT);
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        FlightPath flightPath = new FlightPath(List.of(new FlightPath.Leg(route, query.get("orderNo"))));
+        sendJson(exchange, output -> OutputWriter.writeFlightpath(flightPath, output));
+    }
+
+    // Get the plan of the day named after the path prefix, planning it on first request; concurrent requests for the day share one planning run
+    private DayPlan dayPlan(HttpExchange exchange, String prefix) throws IOException, InterruptedException {
+        String date = exchange.getRequestURI().getPath().substring(prefix.length());
+        if (!date.matches("\\d{4}-\\d{2}-\\d{2}")) {
+            throw new IllegalArgumentException("Improper date format: Ensure the date is in the YYYY-MM-DD format.");
+        }
+        CompletableFuture<DayPlan> plan;
+        boolean planHere = false;
+        synchronized (dayPlans) {
+            plan = dayPlans.get(date);
+            if (plan == null) {
+                plan = new CompletableFuture<>();
+                dayPlans.put(date, plan);
+                planHere = true;
+            }
+        }
+        if (planHere) {
+            try {
+                Order[] orders = RestClient.await(dataSource.getOrders(date));
+                List<Order> validOrders = orderValidator.validateAll(orders, restaurants).validOrders();
+                plan.complete(new DayPlan(orders, pathManager.determineRoutes(validOrders)));
+            } catch (Exception e) {
+                // Forget the failed day so a later request tries again
+                synchronized (dayPlans) {
+                    dayPlans.remove(date, plan);
+                }
+                plan.completeExceptionally(e);
+            }
+        }
+        return RestClient.await(plan);
+    }
+
+    // Split the query string of a request into its decoded parameters
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    // A writer of a JSON response body
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(OutputStream output) throws IOException;
+    }
+
+    // Stream a JSON response with chunked encoding, so large flight paths are never held in memory
+    private static void sendJson(HttpExchange exchange, BodyWriter body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream output = exchange.getResponseBody()) {
+            body.write(output);
+        }
+    }
+
+    // Send an error response with a plain text message, unless the response has already started
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            byte[] bytes = (message == null ? "" : message).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                exchange.getResponseBody().write(bytes);
+            }
+        } catch (IOException e) {
+            // The headers were already sent, so the client sees a truncated response instead
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Define a prebuilt index over the edges of one polygon, bucketing them into horizontal latitude bands
+// A point test only has to look at the edges in the band containing the point, since an eastward ray can only meet those
+public class PolygonIndex {
+    private final NamedRegion region;
+    // Vertex coordinates, where edge i runs from vertex i to vertex (i + 1) % n
+    private final double[] lngs, lats;
+    // Bounding box of the polygon
+    private final double minLng, maxLng, minLat, maxLat;
+    // Edge indexes per latitude band, each band kept in the original edge order
+    private final int[][] edgesByBand;
+    private final double bandHeight;
+
+    // Constructor to build the edges, bounding box and latitude bands of a region
+    public PolygonIndex(NamedRegion region) {
+        this.region = region;
+        LngLat[] vertices = region.vertices();
+        int n = vertices.length;
+        lngs = new double[n];
+        lats = new double[n];
+        double lngLow = Double.MAX_VALUE, lngHigh = -Double.MAX_VALUE, latLow = Double.MAX_VALUE, latHigh = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            lngs[i] = vertices[i].lng();
+            lats[i] = vertices[i].lat();
+            lngLow = Math.min(lngLow, vertices[i].lng());
+            lngHigh = Math.max(lngHigh, vertices[i].lng());
+            latLow = Math.min(latLow, vertices[i].lat());
+            latHigh = Math.max(latHigh, vertices[i].lat());
+        }
+        minLng = lngLow;
+        maxLng = lngHigh;
+        minLat = latLow;
+        maxLat = latHigh;
+
+        // Use about one band per edge so each band only holds a handful of edges
+        int bandCount = Math.max(1, n);
+        bandHeight = (maxLat - minLat) / bandCount;
+        List<List<Integer>> bands = new ArrayList<>();
+        for (int band = 0; band < bandCount; band++) {
+            bands.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            double edgeMinLat = Math.min(lats[i], lats[(i + 1) % n]);
+            double edgeMaxLat = Math.max(lats[i], lats[(i + 1) % n]);
+            for (int band = bandOf(edgeMinLat, bandCount); band <= bandOf(edgeMaxLat, bandCount); band++) {
+                bands.get(band).add(i);
+            }
+        }
+        edgesByBand = new int[bandCount][];
+        for (int band = 0; band < bandCount; band++) {
+            edgesByBand[band] = bands.get(band).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // Get the region this index was built from
+    public NamedRegion getRegion() {
+        return region;
+    }
+
+    // Check if the bounding box of the polygon overlaps the given box
+    public boolean overlapsBox(double boxMinLng, double boxMinLat, double boxMaxLng, double boxMaxLat) {
+        return boxMaxLng >= minLng && boxMinLng <= maxLng && boxMaxLat >= minLat && boxMinLat <= maxLat;
+    }
+
+    // Check if a point is inside the polygon or on its boundary, with the same ray test as LineUtilities.checkInside
+    public boolean contains(LngLat position) {
+        return contains(position.lng(), position.lat());
+    }
+
+    // Check if a point given by its coordinates is inside the polygon or on its boundary
+    public boolean contains(double lng, double lat) {
+        if (lngs.length < 3 || !overlapsBox(lng, lat, lng, lat)) {
+            return false;
+        }
+        int n = lngs.length;
+        int count = 0;
+        for (int i : edgesByBand[bandOf(lat, edgesByBand.length)]) {
+            int j = (i + 1) % n;
+            switch (GeometryKernel.classifyEdge(lngs[i], lats[i], lngs[j], lats[j], lng, lat)) {
+                case GeometryKernel.POINT_ON_EDGE:
+                    return true;
+                case GeometryKernel.RAY_CROSSES_EDGE:
+                    count++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return (count & 1) == 1;
+    }
+
+    // Check if the segment between two points touches any edge of the polygon
+    public boolean intersectsSegment(double startLng, double startLat, double endLng, double endLat) {
+        double segmentMinLat = Math.min(startLat, endLat);
+        double segmentMaxLat = Math.max(startLat, endLat);
+        if (!overlapsBox(Math.min(startLng, endLng), segmentMinLat, Math.max(startLng, endLng), segmentMaxLat)) {
+            return false;
+        }
+        int n = lngs.length;
+        int bandCount = edgesByBand.length;
+        for (int band = bandOf(segmentMinLat, bandCount); band <= bandOf(segmentMaxLat, bandCount); band++) {
+            for (int i : edgesByBand[band]) {
+                int j = (i + 1) % n;
+                if (GeometryKernel.segmentsIntersect(lngs[i], lats[i], lngs[j], lats[j], startLng, startLat, endLng, endLat)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Find the latitude band holding a latitude, clamped to the bands of the polygon
+    private int bandOf(double lat, int bandCount) {
+        if (bandHeight <= 0) {
+            return 0;
+        }
+        int band = (int) ((lat - minLat) / bandHeight);
+        return Math.max(0, Math.min(bandCount - 1, band));
+    }
+}
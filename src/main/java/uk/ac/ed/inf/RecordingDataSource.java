@@ -0,0 +1,84 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+
+// Define a source that passes every value through from another source and snapshots it to a fixture directory,
+// so a later run can replay the same data with ReplayDataSource
+public class RecordingDataSource implements RestDataSource {
+    // Writes dates as YYYY-MM-DD like the service, so the files read back with the same parsers
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final RestDataSource source;
+    private final Path directory;
+
+    // Constructor to record the values fetched from a source into a directory, creating it if needed
+    public RecordingDataSource(RestDataSource source, Path directory) throws IOException {
+        this.source = source;
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    // Pass the "/isAlive" response through; it is not recorded, as a fixture directory is always alive
+    @Override
+    public CompletableFuture<String> isAlive() {
+        return source.isAlive();
+    }
+
+    // Fetch the restaurants and record them
+    @Override
+    public CompletableFuture<Restaurant[]> getRestaurants() {
+        return record(source.getRestaurants(), directory.resolve(ReplayDataSource.RESTAURANTS_FILE));
+    }
+
+    // Fetch the orders for a date and record them
+    @Override
+    public CompletableFuture<Order[]> getOrders(String date) {
+        return record(source.getOrders(date), ReplayDataSource.ordersFile(directory, date));
+    }
+
+    // Fetch the no-fly zones and record them
+    @Override
+    public CompletableFuture<NamedRegion[]> getNoFlyZones() {
+        return record(source.getNoFlyZones(), directory.resolve(ReplayDataSource.NO_FLY_ZONES_FILE));
+    }
+
+    // Fetch the central area and record it
+    @Override
+    public CompletableFuture<NamedRegion> getCentralArea() {
+        return record(source.getCentralArea(), directory.resolve(ReplayDataSource.CENTRAL_AREA_FILE));
+    }
+
+    // Write a fetched value to its file before handing it on, so it is recorded as fetched and before any validation changes it
+    private static <T> CompletableFuture<T> record(CompletableFuture<T> fetch, Path file) {
+        return fetch.thenApply(value -> {
+            try {
+                writeFixture(file, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return value;
+        });
+    }
+
+    // Write a value as a fixture file that ReplayDataSource can read back
+    // The value is written to a temporary file and moved into place, so a replay never sees a half-written file
+    static void writeFixture(Path file, Object value) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        OBJECT_MAPPER.writeValue(temporaryFile.toFile(), value);
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
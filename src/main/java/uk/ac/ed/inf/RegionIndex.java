@@ -0,0 +1,202 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.CENTRAL_REGION_NAME;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Define a prebuilt index over the no-fly zones and the central area, answering containment and crossing queries
+// The zones are bucketed into a uniform grid by bounding box, so a query only looks at the zones near the point
+// Point and move queries go through a RegionRaster first, and only fall back to the exact tests near a polygon edge
+public class RegionIndex {
+    private static final int MAX_GRID_SIZE = 256;
+    // Two moves per raster cell, so the box of a single move spans at most two cells each way
+    private static final double RASTER_CELL_SIZE = 2 * DRONE_MOVE_DISTANCE;
+
+    private final PolygonIndex[] noFlyZones;
+    private final PolygonIndex centralArea;
+    // Uniform grid over the bounding box of all no-fly zones, holding the indexes of the zones overlapping each cell
+    private final double gridMinLng, gridMinLat, gridMaxLng, gridMaxLat, cellWidth, cellHeight;
+    private final int gridSize;
+    private final int[][] zonesByCell;
+    // The lowest grid row and column covered by each zone
+    private final int[] zoneFirstRow, zoneFirstColumn;
+    private final RegionRaster raster;
+
+    // Constructor to build the polygon indexes and the zone grid
+    public RegionIndex(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        if (centralArea == null || !CENTRAL_REGION_NAME.equals(centralArea.name())) {
+            throw new IllegalArgumentException("The central area must be a region named " + CENTRAL_REGION_NAME + ".");
+        }
+        this.centralArea = new PolygonIndex(centralArea);
+        this.noFlyZones = new PolygonIndex[noFlyZones.length];
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE, minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        for (int i = 0; i < noFlyZones.length; i++) {
+            this.noFlyZones[i] = new PolygonIndex(noFlyZones[i]);
+            for (LngLat vertex : noFlyZones[i].vertices()) {
+                minLng = Math.min(minLng, vertex.lng());
+                maxLng = Math.max(maxLng, vertex.lng());
+                minLat = Math.min(minLat, vertex.lat());
+                maxLat = Math.max(maxLat, vertex.lat());
+            }
+        }
+
+        // Size the grid so each cell holds roughly a few zones, whatever the number of zones
+        gridSize = noFlyZones.length == 0 ? 1 : Math.min(MAX_GRID_SIZE, (int) Math.ceil(2 * Math.sqrt(noFlyZones.length)));
+        gridMinLng = noFlyZones.length == 0 ? 0 : minLng;
+        gridMinLat = noFlyZones.length == 0 ? 0 : minLat;
+        gridMaxLng = noFlyZones.length == 0 ? 0 : maxLng;
+        gridMaxLat = noFlyZones.length == 0 ? 0 : maxLat;
+        cellWidth = noFlyZones.length == 0 ? 0 : (maxLng - minLng) / gridSize;
+        cellHeight = noFlyZones.length == 0 ? 0 : (maxLat - minLat) / gridSize;
+
+        List<List<Integer>> cells = new ArrayList<>();
+        for (int cell = 0; cell < gridSize * gridSize; cell++) {
+            cells.add(new ArrayList<>());
+        }
+        zoneFirstRow = new int[noFlyZones.length];
+        zoneFirstColumn = new int[noFlyZones.length];
+        for (int i = 0; i < noFlyZones.length; i++) {
+            double zoneMinLng = Double.MAX_VALUE, zoneMaxLng = -Double.MAX_VALUE, zoneMinLat = Double.MAX_VALUE, zoneMaxLat = -Double.MAX_VALUE;
+            for (LngLat vertex : noFlyZones[i].vertices()) {
+                zoneMinLng = Math.min(zoneMinLng, vertex.lng());
+                zoneMaxLng = Math.max(zoneMaxLng, vertex.lng());
+                zoneMinLat = Math.min(zoneMinLat, vertex.lat());
+                zoneMaxLat = Math.max(zoneMaxLat, vertex.lat());
+            }
+            zoneFirstRow[i] = rowOf(zoneMinLat);
+            zoneFirstColumn[i] = columnOf(zoneMinLng);
+            for (int row = rowOf(zoneMinLat); row <= rowOf(zoneMaxLat); row++) {
+                for (int column = columnOf(zoneMinLng); column <= columnOf(zoneMaxLng); column++) {
+                    cells.get(row * gridSize + column).add(i);
+                }
+            }
+        }
+        zonesByCell = new int[gridSize * gridSize][];
+        for (int cell = 0; cell < zonesByCell.length; cell++) {
+            zonesByCell[cell] = cells.get(cell).stream().mapToInt(Integer::intValue).toArray();
+        }
+        raster = new RegionRaster(this.centralArea, this.noFlyZones, RASTER_CELL_SIZE);
+    }
+
+    // Get the no-fly zones this index was built from
+    public NamedRegion[] getNoFlyZones() {
+        NamedRegion[] regions = new NamedRegion[noFlyZones.length];
+        for (int i = 0; i < noFlyZones.length; i++) {
+            regions[i] = noFlyZones[i].getRegion();
+        }
+        return regions;
+    }
+
+    // Get the central area this index was built from
+    public NamedRegion getCentralArea() {
+        return centralArea.getRegion();
+    }
+
+    // Check if a position is inside the central area
+    public boolean isInCentralArea(LngLat position) {
+        return isInCentralArea(position.lng(), position.lat());
+    }
+
+    // Check if a position given by its coordinates is inside the central area
+    public boolean isInCentralArea(double lng, double lat) {
+        byte rasterClass = raster.centralAreaClass(lng, lat);
+        return rasterClass == RegionRaster.MIXED ? centralArea.contains(lng, lat) : rasterClass == RegionRaster.INSIDE;
+    }
+
+    // Check if the straight segment between two positions touches the boundary of the central area
+    public boolean crossesCentralAreaBoundary(double startLng, double startLat, double endLng, double endLat) {
+        return centralArea.intersectsSegment(startLng, startLat, endLng, endLat);
+    }
+
+    // Check if a position is inside any of the no-fly zones
+    public boolean isInNoFlyZone(LngLat position) {
+        return isInNoFlyZone(position.lng(), position.lat());
+    }
+
+    // Check if a position given by its coordinates is inside any of the no-fly zones
+    public boolean isInNoFlyZone(double lng, double lat) {
+        byte rasterClass = raster.noFlyClass(lng, lat);
+        if (rasterClass != RegionRaster.MIXED) {
+            return rasterClass == RegionRaster.INSIDE;
+        }
+        if (!isInGrid(lng, lat, lng, lat)) {
+            return false;
+        }
+        for (int i : zonesByCell[rowOf(lat) * gridSize + columnOf(lng)]) {
+            if (noFlyZones[i].contains(lng, lat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Check if the straight segment between two positions touches or enters any of the no-fly zones
+    public boolean crossesNoFlyZone(LngLat start, LngLat end) {
+        return crossesNoFlyZone(start.lng(), start.lat(), end.lng(), end.lat());
+    }
+
+    // Check if the straight segment between two positions, given by their coordinates, touches or enters any no-fly zone
+    public boolean crossesNoFlyZone(double startLng, double startLat, double endLng, double endLat) {
+        return crossesNoFlyZone(startLng, startLat, endLng, endLat, null);
+    }
+
+    // Check if a segment touches or enters any no-fly zone, counting the check into the statistics of a search if given
+    public boolean crossesNoFlyZone(double startLng, double startLat, double endLng, double endLat, SearchStatistics statistics) {
+        double minLng = Math.min(startLng, endLng);
+        double maxLng = Math.max(startLng, endLng);
+        double minLat = Math.min(startLat, endLat);
+        double maxLat = Math.max(startLat, endLat);
+        if (!isInGrid(minLng, minLat, maxLng, maxLat) || raster.isClearOfNoFlyZones(minLng, minLat, maxLng, maxLat)) {
+            if (statistics != null) {
+                statistics.recordMoveCheck(0);
+            }
+            return false;
+        }
+        int firstRow = rowOf(minLat), lastRow = rowOf(maxLat);
+        int firstColumn = columnOf(minLng), lastColumn = columnOf(maxLng);
+        int polygonTests = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                for (int i : zonesByCell[row * gridSize + column]) {
+                    // A zone can sit in several of the cells, so only test it from the first cell it shares with the segment
+                    if (row != Math.max(firstRow, zoneFirstRow[i]) || column != Math.max(firstColumn, zoneFirstColumn[i])) {
+                        continue;
+                    }
+                    polygonTests++;
+                    if (noFlyZones[i].intersectsSegment(startLng, startLat, endLng, endLat) || noFlyZones[i].contains(endLng, endLat)) {
+                        if (statistics != null) {
+                            statistics.recordMoveCheck(polygonTests);
+                        }
+                        return true;
+                    }
+                }
+            }
+        }
+        if (statistics != null) {
+            statistics.recordMoveCheck(polygonTests);
+        }
+        return false;
+    }
+
+    // Check if a box overlaps the grid covering the no-fly zones
+    private boolean isInGrid(double minLng, double minLat, double maxLng, double maxLat) {
+        return noFlyZones.length > 0
+                && maxLng >= gridMinLng && minLng <= gridMaxLng
+                && maxLat >= gridMinLat && minLat <= gridMaxLat;
+    }
+
+    // Find the grid column holding a longitude, clamped to the grid
+    private int columnOf(double lng) {
+        return cellWidth <= 0 ? 0 : Math.max(0, Math.min(gridSize - 1, (int) ((lng - gridMinLng) / cellWidth)));
+    }
+
+    // Find the grid row holding a latitude, clamped to the grid
+    private int rowOf(double lat) {
+        return cellHeight <= 0 ? 0 : Math.max(0, Math.min(gridSize - 1, (int) ((lat - gridMinLat) / cellHeight)));
+    }
+}
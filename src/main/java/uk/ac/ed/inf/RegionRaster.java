@@ -0,0 +1,161 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+// Define a lazily filled raster over the central area and the no-fly zones, classing each cell as inside, outside or mixed
+// for the central area and, separately, for the no-fly zones
+// A cell is only mixed when a polygon edge passes through it, so a point anywhere else is answered by one array lookup
+// and only points in mixed cells need the exact polygon tests
+public class RegionRaster {
+    public static final byte OUTSIDE = 1;
+    public static final byte INSIDE = 2;
+    public static final byte MIXED = 3;
+
+    private static final int MAX_CELLS = 1 << 22;
+    // Cells are grown by this much when looking for edges, so rounding in the exact tests can never disagree with a cell's class
+    private static final double EDGE_MARGIN = 1e-9;
+    private static final Metrics.Counter CELLS_CLASSIFIED = Metrics.global().counter("geometry.rasterCells");
+
+    private final PolygonIndex centralArea;
+    private final PolygonIndex[] noFlyZones;
+    private final double minLng, minLat, cellSize, inverseCellSize;
+    private final int columns, rows;
+    // The central area class in the low two bits and the no-fly class in the next two, or 0 for a cell not classified yet
+    // Threads may race to classify the same cell, which is harmless since they all write the same byte
+    private final byte[] cells;
+
+    // Constructor to cover the bounding box of the central area and the zones with cells of about the given size
+    // The cells are grown if needed to keep the raster within MAX_CELLS
+    public RegionRaster(PolygonIndex centralArea, PolygonIndex[] noFlyZones, double cellSize) {
+        this.centralArea = centralArea;
+        this.noFlyZones = noFlyZones;
+        double lngLow = Double.MAX_VALUE, lngHigh = -Double.MAX_VALUE, latLow = Double.MAX_VALUE, latHigh = -Double.MAX_VALUE;
+        for (PolygonIndex polygon : concat(centralArea, noFlyZones)) {
+            for (LngLat vertex : polygon.getRegion().vertices()) {
+                lngLow = Math.min(lngLow, vertex.lng());
+                lngHigh = Math.max(lngHigh, vertex.lng());
+                latLow = Math.min(latLow, vertex.lat());
+                latHigh = Math.max(latHigh, vertex.lat());
+            }
+        }
+        if (lngLow > lngHigh) {
+            lngLow = lngHigh = latLow = latHigh = 0;
+        }
+        double width = lngHigh - lngLow, height = latHigh - latLow;
+        while ((width / cellSize + 3) * (height / cellSize + 3) > MAX_CELLS) {
+            cellSize *= 2;
+        }
+        // Leave a cell of margin on every side, so points on the outer edges of the polygons still land in a cell
+        this.cellSize = cellSize;
+        inverseCellSize = 1 / cellSize;
+        this.minLng = lngLow - cellSize;
+        this.minLat = latLow - cellSize;
+        columns = (int) (width / cellSize) + 3;
+        rows = (int) (height / cellSize) + 3;
+        cells = new byte[columns * rows];
+    }
+
+    // Get the class of a point for the central area
+    // Points outside the raster are outside every polygon, so they are classed as outside
+    public byte centralAreaClass(double lng, double lat) {
+        int cell = cellOf(lng, lat);
+        return cell < 0 ? OUTSIDE : (byte) (classified(cell) & 3);
+    }
+
+    // Get the class of a point for the no-fly zones, inside meaning inside one of them
+    public byte noFlyClass(double lng, double lat) {
+        int cell = cellOf(lng, lat);
+        return cell < 0 ? OUTSIDE : (byte) (classified(cell) >> 2);
+    }
+
+    // Check if every cell overlapping a box is clear of the no-fly zones, so nothing in the box can touch or enter a zone
+    // Only boxes spanning a few cells are looked at, such as the box of a single move; larger boxes return false
+    public boolean isClearOfNoFlyZones(double boxMinLng, double boxMinLat, double boxMaxLng, double boxMaxLat) {
+        double firstX = (boxMinLng - minLng) * inverseCellSize, lastX = (boxMaxLng - minLng) * inverseCellSize;
+        double firstY = (boxMinLat - minLat) * inverseCellSize, lastY = (boxMaxLat - minLat) * inverseCellSize;
+        if (!(firstX >= 0 && firstY >= 0 && lastX < columns && lastY < rows)) {
+            return false;
+        }
+        int firstColumn = (int) firstX, lastColumn = (int) lastX, firstRow = (int) firstY, lastRow = (int) lastY;
+        if (lastColumn - firstColumn > 1 || lastRow - firstRow > 1) {
+            return false;
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                if (classified(row * columns + column) >> 2 != OUTSIDE) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Get the size of the cells
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    // Get the class byte of a cell, classifying it first if no query has touched it yet
+    private int classified(int cell) {
+        byte classes = cells[cell];
+        if (classes == 0) {
+            double cellMinLng = minLng + (cell % columns) * cellSize;
+            double cellMinLat = minLat + (cell / columns) * cellSize;
+            double cellMaxLng = cellMinLng + cellSize, cellMaxLat = cellMinLat + cellSize;
+            byte noFlyClass = OUTSIDE;
+            for (PolygonIndex zone : noFlyZones) {
+                byte zoneClass = classify(zone, cellMinLng, cellMinLat, cellMaxLng, cellMaxLat);
+                if (zoneClass == INSIDE) {
+                    noFlyClass = INSIDE;
+                    break;
+                }
+                if (zoneClass == MIXED) {
+                    noFlyClass = MIXED;
+                }
+            }
+            classes = (byte) (classify(centralArea, cellMinLng, cellMinLat, cellMaxLng, cellMaxLat) | noFlyClass << 2);
+            cells[cell] = classes;
+            CELLS_CLASSIFIED.increment();
+        }
+        return classes;
+    }
+
+    // Class a cell against one polygon: mixed if any edge touches the cell, otherwise the whole cell shares the class of its centre
+    private static byte classify(PolygonIndex polygon, double cellMinLng, double cellMinLat, double cellMaxLng, double cellMaxLat) {
+        double boxMinLng = cellMinLng - EDGE_MARGIN, boxMinLat = cellMinLat - EDGE_MARGIN;
+        double boxMaxLng = cellMaxLng + EDGE_MARGIN, boxMaxLat = cellMaxLat + EDGE_MARGIN;
+        if (!polygon.overlapsBox(boxMinLng, boxMinLat, boxMaxLng, boxMaxLat)) {
+            return OUTSIDE;
+        }
+        // An edge touching the box either crosses one of its sides or has a vertex inside it
+        if (polygon.intersectsSegment(boxMinLng, boxMinLat, boxMaxLng, boxMinLat)
+                || polygon.intersectsSegment(boxMaxLng, boxMinLat, boxMaxLng, boxMaxLat)
+                || polygon.intersectsSegment(boxMaxLng, boxMaxLat, boxMinLng, boxMaxLat)
+                || polygon.intersectsSegment(boxMinLng, boxMaxLat, boxMinLng, boxMinLat)) {
+            return MIXED;
+        }
+        for (LngLat vertex : polygon.getRegion().vertices()) {
+            if (vertex.lng() >= boxMinLng && vertex.lng() <= boxMaxLng && vertex.lat() >= boxMinLat && vertex.lat() <= boxMaxLat) {
+                return MIXED;
+            }
+        }
+        return polygon.contains((cellMinLng + cellMaxLng) / 2, (cellMinLat + cellMaxLat) / 2) ? INSIDE : OUTSIDE;
+    }
+
+    // Find the cell holding a point, or -1 if the point is outside the raster
+    private int cellOf(double lng, double lat) {
+        double x = (lng - minLng) * inverseCellSize, y = (lat - minLat) * inverseCellSize;
+        if (!(x >= 0 && y >= 0 && x < columns && y < rows)) {
+            return -1;
+        }
+        return (int) y * columns + (int) x;
+    }
+
+    // Put the central area in front of the no-fly zones
+    private static PolygonIndex[] concat(PolygonIndex centralArea, PolygonIndex[] noFlyZones) {
+        PolygonIndex[] polygons = new PolygonIndex[noFlyZones.length + 1];
+        polygons[0] = centralArea;
+        System.arraycopy(noFlyZones, 0, polygons, 1, noFlyZones.length);
+        return polygons;
+    }
+}
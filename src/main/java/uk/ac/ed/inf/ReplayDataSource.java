@@ -0,0 +1,122 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+// Define a source that replays REST data recorded to a fixture directory, so runs can be timed without the network
+// Each file is memory-mapped and parsed straight from the mapping, with the same parsers as RestClient
+public class ReplayDataSource implements RestDataSource {
+    // Names of the files in a fixture directory, matching the endpoints they were recorded from
+    static final String RESTAURANTS_FILE = "restaurants.json";
+    static final String NO_FLY_ZONES_FILE = "noFlyZones.json";
+    static final String CENTRAL_AREA_FILE = "centralArea.json";
+
+    private final Path directory;
+
+    // A parser reading a value from a mapped file
+    private interface FileParser<T> {
+        T parse(InputStream input) throws IOException;
+    }
+
+    // Constructor to replay the fixture files in a directory
+    public ReplayDataSource(Path directory) {
+        this.directory = directory;
+    }
+
+    // Get the directory the fixture files are read from
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Report the source alive while its fixture directory exists
+    @Override
+    public CompletableFuture<String> isAlive() {
+        return CompletableFuture.completedFuture(Files.isDirectory(directory) ? "true" : "false");
+    }
+
+    // Read the restaurants
+    @Override
+    public CompletableFuture<Restaurant[]> getRestaurants() {
+        return read("restaurants", directory.resolve(RESTAURANTS_FILE), input -> RestClient.OBJECT_MAPPER.readValue(input, Restaurant[].class));
+    }
+
+    // Read the orders for a date in the YYYY-MM-DD format
+    @Override
+    public CompletableFuture<Order[]> getOrders(String date) {
+        return read("orders", ordersFile(directory, date), input -> RestClient.OBJECT_MAPPER.readValue(input, Order[].class));
+    }
+
+    // Read the no-fly zones
+    @Override
+    public CompletableFuture<NamedRegion[]> getNoFlyZones() {
+        return read("noFlyZones", directory.resolve(NO_FLY_ZONES_FILE), input -> RestClient.OBJECT_MAPPER.readValue(input, NamedRegion[].class));
+    }
+
+    // Read the central area, stored as a single region or as an array holding it first
+    @Override
+    public CompletableFuture<NamedRegion> getCentralArea() {
+        return read("centralArea", directory.resolve(CENTRAL_AREA_FILE), input -> RestClient.OBJECT_MAPPER.readValue(input, NamedRegion[].class)[0]);
+    }
+
+    // Get the file holding the orders of a date in a fixture directory
+    static Path ordersFile(Path directory, String date) {
+        return directory.resolve("orders-" + date + ".json");
+    }
+
+    // Map a fixture file and parse it, recording the time taken as the histogram replay.<name>.nanos
+    // The value is ready when this returns, so a missing or malformed file fails the future straight away
+    private static <T> CompletableFuture<T> read(String name, Path file, FileParser<T> parser) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return CompletableFuture.completedFuture(parser.parse(new BufferInputStream(buffer)));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            Metrics.global().histogram("replay." + name + ".nanos").recordNanosSince(start);
+        }
+    }
+
+    // An input stream over a buffer, letting the JSON parser read a mapped file without copying it onto the heap first
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        // Constructor to read the remaining bytes of a buffer
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        // Read one byte, or -1 at the end of the buffer
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        // Read up to length bytes into an array, or -1 at the end of the buffer
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        // Get the number of bytes left in the buffer
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Define an asynchronous client for the REST service that fetches endpoints concurrently
+// Each request has its own timeout, covering the response body as well as the headers, and is retried with exponential backoff after connection errors, timeouts and 5xx or 429 responses
+public class RestClient implements RestDataSource {
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    // Configured once up front and only read afterwards, so it is safe to share between concurrent requests
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(20);
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(250);
+
+    private static final Metrics.Counter RETRIES = Metrics.global().counter("rest.retries");
+
+    private final String baseUrl;
+    private final Duration timeout;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+
+    // Constructor to create a client for the service at the given base URL with the default timeout and retries
+    public RestClient(String baseUrl) {
+        this(baseUrl, DEFAULT_TIMEOUT, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF);
+    }
+
+    // Constructor to create a client with a per-request timeout, a maximum number of attempts and the delay before the first retry
+    public RestClient(String baseUrl, Duration timeout, int maxAttempts, Duration initialBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed, got " + maxAttempts + ".");
+        }
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = timeout;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+    }
+
+    // Get the base URL requests are sent to
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    // Fetch the "/isAlive" response body
+    @Override
+    public CompletableFuture<String> isAlive() {
+        return fetch("isAlive", "/isAlive", body -> new String(body.readAllBytes(), StandardCharsets.UTF_8).trim());
+    }
+
+    // Fetch the restaurants
+    @Override
+    public CompletableFuture<Restaurant[]> getRestaurants() {
+        return fetch("restaurants", "/restaurants", body -> OBJECT_MAPPER.readValue(body, Restaurant[].class));
+    }
+
+    // Fetch the orders for a date in the YYYY-MM-DD format
+    @Override
+    public CompletableFuture<Order[]> getOrders(String date) {
+        return fetch("orders", "/orders/" + date, body -> OBJECT_MAPPER.readValue(body, Order[].class));
+    }
+
+    // Fetch the no-fly zones
+    @Override
+    public CompletableFuture<NamedRegion[]> getNoFlyZones() {
+        return fetch("noFlyZones", "/noFlyZones", body -> OBJECT_MAPPER.readValue(body, NamedRegion[].class));
+    }
+
+    // Fetch the central area, which the service may send as a single region or as an array holding it first
+    @Override
+    public CompletableFuture<NamedRegion> getCentralArea() {
+        return fetch("centralArea", "/centralArea", body -> OBJECT_MAPPER.readValue(body, NamedRegion[].class)[0]);
+    }
+
+    // Wait for a fetch to finish, rethrowing the failure that ended it
+    public static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            } else if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Request failed: " + cause, cause);
+        }
+    }
+
+    // A parser reading a value straight from a response body stream
+    private interface BodyParser<T> {
+        T parse(InputStream body) throws IOException;
+    }
+
+    // Send a GET request for the path, retrying failed attempts, and parse the body of the first successful response
+    // The time until the value is parsed, retries included, is recorded against the endpoint's name
+    private <T> CompletableFuture<T> fetch(String endpoint, String path, BodyParser<T> parser) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout).GET().build();
+        Metrics.Histogram latency = Metrics.global().histogram("rest." + endpoint + ".nanos");
+        long start = System.nanoTime();
+        return attempt(request, parser, 1).whenComplete((value, failure) -> latency.recordNanosSince(start));
+    }
+
+    // Make one attempt at a request and schedule the next one after a backoff if it fails in a way worth retrying
+    // The request's own timeout only covers the wait for the headers, so the whole attempt, reading the body included, is
+    // also bounded by the timeout; when it runs over, the exchange is cancelled and the body stream closed to end a stalled read
+    private <T> CompletableFuture<T> attempt(HttpRequest request, BodyParser<T> parser, int attemptNumber) {
+        CompletableFuture<HttpResponse<InputStream>> exchange = HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<T> boundedParse = exchange
+                .thenApplyAsync(response -> readResponse(request, response, parser))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        boundedParse.whenComplete((value, failure) -> {
+            if (failure != null) {
+                exchange.cancel(true);
+                exchange.thenAccept(response -> closeQuietly(response.body()));
+            }
+        });
+        return boundedParse
+                .handle((value, failure) -> {
+                    if (failure == null) {
+                        return CompletableFuture.completedFuture(value);
+                    }
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (cause instanceof TimeoutException) {
+                        cause = new HttpTimeoutException("No complete response within " + timeout.toMillis() + " ms from " + request.uri());
+                    }
+                    if (attemptNumber >= maxAttempts || !isRetryable(cause)) {
+                        return CompletableFuture.<T>failedFuture(cause);
+                    }
+                    RETRIES.increment();
+                    long delay = initialBackoff.toMillis() << (attemptNumber - 1);
+                    return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> attempt(request, parser, attemptNumber + 1));
+                })
+                .thenCompose(future -> future);
+    }
+
+    // Check the status of a response and parse its body as it arrives
+    private static <T> T readResponse(HttpRequest request, HttpResponse<InputStream> response, BodyParser<T> parser) {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new ResponseStatusException(response.statusCode(), request.uri().toString());
+            }
+            return parser.parse(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Close a response body that is no longer wanted, ignoring any failure since the attempt has already failed
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // Nothing more can go wrong with a body nobody reads
+        }
+    }
+
+    // Decide whether a failed attempt may succeed if repeated
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof ResponseStatusException statusException) {
+            return statusException.getStatusCode() >= 500 || statusException.getStatusCode() == 429;
+        }
+        // Transport failures and timeouts arrive as IOExceptions, but a body Jackson could not parse will not improve on retry
+        if (cause instanceof UncheckedIOException unchecked) {
+            cause = unchecked.getCause();
+        }
+        return cause instanceof IOException && !(cause instanceof JsonProcessingException);
+    }
+
+    // Thrown when the service answers with a status other than 200 (OK)
+    public static class ResponseStatusException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        // Constructor to create the exception for a status code and the URL that returned it
+        public ResponseStatusException(int statusCode, String url) {
+            super("Incorrect response code ( " + statusCode + " ), for URL : " + url);
+            this.statusCode = statusCode;
+        }
+
+        // Get the status code the service returned
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+// Define a source of the data a run needs from the REST service, either the live service or a local fixture directory
+// Every value is returned as a future, so a run can request everything at once whatever the source
+public interface RestDataSource {
+    // Everything a run needs for a day, fetched together
+    record RestData(Restaurant[] restaurants, Order[] orders, NamedRegion[] noFlyZones, NamedRegion centralArea) {
+    }
+
+    // Fetch the "/isAlive" response, which is "true" when the source can answer
+    CompletableFuture<String> isAlive();
+
+    // Fetch the restaurants
+    CompletableFuture<Restaurant[]> getRestaurants();
+
+    // Fetch the orders for a date in the YYYY-MM-DD format
+    CompletableFuture<Order[]> getOrders(String date);
+
+    // Fetch the no-fly zones
+    CompletableFuture<NamedRegion[]> getNoFlyZones();
+
+    // Fetch the central area
+    CompletableFuture<NamedRegion> getCentralArea();
+
+    // Fetch every value a run needs at the same time, failing if the source does not report itself alive
+    default RestData fetchAll(String date) throws IOException, InterruptedException {
+        CompletableFuture<String> alive = isAlive();
+        CompletableFuture<Restaurant[]> restaurants = getRestaurants();
+        CompletableFuture<Order[]> orders = getOrders(date);
+        CompletableFuture<NamedRegion[]> noFlyZones = getNoFlyZones();
+        CompletableFuture<NamedRegion> centralArea = getCentralArea();
+        if (!RestClient.await(alive).equals("true")) {
+            throw new IllegalArgumentException("Unresponsive service: The service is not alive and responsive.");
+        }
+        return new RestData(RestClient.await(restaurants), RestClient.await(orders), RestClient.await(noFlyZones), RestClient.await(centralArea));
+    }
+
+    // Get the source for a location, calling the service when it is an http or https URL and otherwise replaying the fixture directory it names
+    static RestDataSource forLocation(String location) {
+        if (!isServiceUrl(location) && isFixtureDirectory(location)) {
+            return new ReplayDataSource(Path.of(location));
+        }
+        return new RestClient(location);
+    }
+
+    // Check if a location is an absolute http or https URL with a host
+    static boolean isServiceUrl(String location) {
+        try {
+            URI uri = new URI(location);
+            return ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) && uri.getHost() != null;
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    // Check if a location names an existing directory, which is read as a directory of recorded fixture files
+    static boolean isFixtureDirectory(String location) {
+        try {
+            return Files.isDirectory(Path.of(location));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+}
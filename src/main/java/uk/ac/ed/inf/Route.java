@@ -0,0 +1,113 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.List;
+
+// Define a compact one-way path: a start point plus one byte per move holding the angle index (0 to 15) or HOVER
+// The coordinates of every position are only rebuilt, once, the first time they are needed
+public final class Route {
+    // Marks a hover move, which keeps the drone in place
+    public static final byte HOVER = 16;
+
+    private final LngLat start;
+    private final byte[] angleIndexes;
+    // Longitudes and latitudes of the positions before each move and after the last one, filled lazily
+    private volatile double[] lngs, lats;
+
+    // Constructor to create a route from its start point and angle indexes
+    public Route(LngLat start, byte[] angleIndexes) {
+        this.start = start;
+        this.angleIndexes = angleIndexes;
+    }
+
+    // Create a route from the movements produced by a path engine
+    public static Route fromPath(LngLat start, List<Movement> path) {
+        byte[] angleIndexes = new byte[path.size()];
+        for (int i = 0; i < angleIndexes.length; i++) {
+            double angle = path.get(i).getAngle();
+            angleIndexes[i] = angle == 999 ? HOVER : (byte) (angle / GeometryKernel.ANGLE_STEP);
+        }
+        return new Route(start, angleIndexes);
+    }
+
+    // Get the start point of the route
+    public LngLat getStart() {
+        return start;
+    }
+
+    // Get the number of moves in the route, including hovers
+    public int getMoveCount() {
+        return angleIndexes.length;
+    }
+
+    // Get the angle index of a move, or HOVER
+    public byte getAngleIndex(int move) {
+        return angleIndexes[move];
+    }
+
+    // Get the angle of a move in degrees, with 999 for a hover
+    public double getAngle(int move) {
+        return angleIndexes[move] == HOVER ? 999 : angleIndexes[move] * GeometryKernel.ANGLE_STEP;
+    }
+
+    // Get the longitude of the drone before the given move, or after the last move when move == getMoveCount()
+    public double lngAt(int move) {
+        ensurePositions();
+        return lngs[move];
+    }
+
+    // Get the latitude of the drone before the given move, or after the last move when move == getMoveCount()
+    public double latAt(int move) {
+        ensurePositions();
+        return lats[move];
+    }
+
+    // Get a copy of the angle indexes, for storing the route
+    byte[] copyAngleIndexes() {
+        return angleIndexes.clone();
+    }
+
+    // Get the number of moves flown for a round trip: out along the route, back along its moves reversed, then a hover
+    public int getRoundTripMoveCount() {
+        return 2 * angleIndexes.length;
+    }
+
+    // Build one move of the round trip for an order
+    // The route is expected to end with a single hover, as path engines produce, and the way back reuses its positions exactly
+    public Movement roundTripMove(int move, String orderNumber) {
+        int outboundMoves = angleIndexes.length;
+        if (move < outboundMoves) {
+            return new Movement(positionAt(move), getAngle(move), positionAt(angleIndexes[move] == HOVER ? move : move + 1), orderNumber);
+        }
+        if (move < 2 * outboundMoves - 1) {
+            // Fly the outbound moves backwards, skipping the hover at the end of the outbound leg
+            int outboundMove = 2 * outboundMoves - 2 - move;
+            return new Movement(positionAt(outboundMove + 1), (getAngle(outboundMove) + 180) % 360, positionAt(outboundMove), orderNumber);
+        }
+        return new Movement(positionAt(0), 999, positionAt(0), orderNumber);
+    }
+
+    // Build the position before a move as an LngLat
+    private LngLat positionAt(int move) {
+        return move == 0 ? start : new LngLat(lngAt(move), latAt(move));
+    }
+
+    // Replay the moves from the start point to fill in the positions, using the same arithmetic as the path engines
+    private void ensurePositions() {
+        if (lngs != null) {
+            return;
+        }
+        double[] newLngs = new double[angleIndexes.length + 1];
+        double[] newLats = new double[angleIndexes.length + 1];
+        newLngs[0] = start.lng();
+        newLats[0] = start.lat();
+        for (int i = 0; i < angleIndexes.length; i++) {
+            boolean isHover = angleIndexes[i] == HOVER;
+            newLngs[i + 1] = isHover ? newLngs[i] : GeometryKernel.nextLng(newLngs[i], angleIndexes[i]);
+            newLats[i + 1] = isHover ? newLats[i] : GeometryKernel.nextLat(newLats[i], angleIndexes[i]);
+        }
+        lats = newLats;
+        lngs = newLngs;
+    }
+}
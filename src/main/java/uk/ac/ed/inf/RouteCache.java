@@ -0,0 +1,187 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Define a bounded cache of planned routes, kept in least recently used order and evicting the oldest routes
+// once it holds more routes, or more moves in total, than its bounds allow
+// Lookups are counted as hits and misses and evictions are counted too, both here and in the global Metrics
+public class RouteCache {
+    // Bounds used when none are given: far more routes than there are restaurants, and moves worth a few hundred megabytes of positions
+    public static final int DEFAULT_MAX_ROUTES = 100_000;
+    public static final long DEFAULT_MAX_MOVES = 10_000_000;
+
+    private static final Metrics.Counter HITS = Metrics.global().counter("routeCache.hits");
+    private static final Metrics.Counter MISSES = Metrics.global().counter("routeCache.misses");
+    private static final Metrics.Counter EVICTIONS = Metrics.global().counter("routeCache.evictions");
+
+    private final int maxRoutes;
+    private final long maxMoves;
+    // Guarded by this cache; access order makes the first entry the least recently used
+    private final LinkedHashMap<Key, Route> routes = new LinkedHashMap<>(64, 0.75f, true);
+    private long moveCount;
+    private long hits, misses, evictions;
+    private Consumer<Key> insertionListener = key -> {
+    };
+    private Consumer<Key> evictionListener = key -> {
+    };
+
+    // The source and target of a route as the raw bits of their coordinates, with the hash worked out once
+    // The bits are compared exactly rather than snapped to a grid, since a route is only close enough to the exact source it was planned for
+    public static final class Key {
+        private final long sourceLng, sourceLat, targetLng, targetLat;
+        private final int hash;
+
+        // Constructor to create the key of the route from a source to a target
+        public Key(LngLat source, LngLat target) {
+            sourceLng = Double.doubleToLongBits(source.lng());
+            sourceLat = Double.doubleToLongBits(source.lat());
+            targetLng = Double.doubleToLongBits(target.lng());
+            targetLat = Double.doubleToLongBits(target.lat());
+            long mixed = sourceLng * 31 + sourceLat;
+            mixed = mixed * 31 + targetLng;
+            mixed = mixed * 31 + targetLat;
+            hash = Long.hashCode(mixed ^ (mixed >>> 29));
+        }
+
+        // Get the source the route was planned from
+        public LngLat source() {
+            return new LngLat(Double.longBitsToDouble(sourceLng), Double.longBitsToDouble(sourceLat));
+        }
+
+        // Get the target the route was planned to
+        public LngLat target() {
+            return new LngLat(Double.longBitsToDouble(targetLng), Double.longBitsToDouble(targetLat));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.hash == hash && key.sourceLng == sourceLng && key.sourceLat == sourceLat
+                    && key.targetLng == targetLng && key.targetLat == targetLat;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Constructor to create a cache with the default bounds
+    public RouteCache() {
+        this(DEFAULT_MAX_ROUTES, DEFAULT_MAX_MOVES);
+    }
+
+    // Constructor to create a cache holding at most the given number of routes and of moves across all routes
+    public RouteCache(int maxRoutes, long maxMoves) {
+        if (maxRoutes < 1 || maxMoves < 1) {
+            throw new IllegalArgumentException("The route cache must be able to hold at least one route and one move.");
+        }
+        this.maxRoutes = maxRoutes;
+        this.maxMoves = maxMoves;
+    }
+
+    // Set the action run with the key of each route added to the cache, while the cache is still locked,
+    // so it always runs before the eviction listener for the same route
+    public synchronized void setInsertionListener(Consumer<Key> insertionListener) {
+        this.insertionListener = insertionListener;
+    }
+
+    // Set the action run with the key of each evicted route, such as dropping it from another index
+    public synchronized void setEvictionListener(Consumer<Key> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    // Look up a route, counting a hit or a miss and marking the route as recently used
+    public synchronized Route get(Key key) {
+        Route route = routes.get(key);
+        if (route != null) {
+            hits++;
+            HITS.increment();
+        } else {
+            misses++;
+            MISSES.increment();
+        }
+        return route;
+    }
+
+    // Cache a route unless one is already cached for the key, returning the cached route in that case and null otherwise
+    // The least recently used routes are then evicted until the cache is within its bounds, always keeping the newest route
+    public synchronized Route putIfAbsent(Key key, Route route) {
+        Route existingRoute = routes.get(key);
+        if (existingRoute != null) {
+            return existingRoute;
+        }
+        routes.put(key, route);
+        moveCount += route.getMoveCount();
+        insertionListener.accept(key);
+        Iterator<Map.Entry<Key, Route>> eldest = routes.entrySet().iterator();
+        while ((routes.size() > maxRoutes || moveCount > maxMoves) && routes.size() > 1) {
+            Map.Entry<Key, Route> entry = eldest.next();
+            eldest.remove();
+            moveCount -= entry.getValue().getMoveCount();
+            evictions++;
+            EVICTIONS.increment();
+            evictionListener.accept(entry.getKey());
+        }
+        return null;
+    }
+
+    // Remove a route, returning it or null if it was not cached
+    public synchronized Route remove(Key key) {
+        Route route = routes.remove(key);
+        if (route != null) {
+            moveCount -= route.getMoveCount();
+        }
+        return route;
+    }
+
+    // Get a copy of the cached routes, least recently used first, without counting lookups or changing the eviction order
+    public synchronized List<Map.Entry<Key, Route>> entries() {
+        List<Map.Entry<Key, Route>> entries = new ArrayList<>(routes.size());
+        for (Map.Entry<Key, Route> entry : routes.entrySet()) {
+            entries.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    // Get the number of routes cached
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    // Get the number of moves across all cached routes
+    public synchronized long getMoveCount() {
+        return moveCount;
+    }
+
+    // Get the number of lookups that found a route
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    // Get the number of lookups that found no route
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Get the number of routes evicted to stay within the bounds
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Get the most routes the cache holds
+    public int getMaxRoutes() {
+        return maxRoutes;
+    }
+
+    // Get the most moves the cache holds across all routes
+    public long getMaxMoves() {
+        return maxMoves;
+    }
+}
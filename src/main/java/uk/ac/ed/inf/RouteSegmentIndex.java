@@ -0,0 +1,87 @@
+package uk.ac.ed.inf;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Define a spatial index over the move segments of cached routes, answering which routes pass near a box
+// Each route is registered in every grid cell touched by the bounding box of one of its moves, so a box query only returns routes that may cross it
+public class RouteSegmentIndex<K> {
+    // Width and height of a grid cell in degrees, a handful of moves across
+    static final double CELL_SIZE = 0.001;
+
+    private final Map<Long, Set<K>> routesByCell = new HashMap<>();
+    private final Map<K, long[]> cellsByRoute = new HashMap<>();
+
+    // Register the cells crossed by the outbound moves of a route; the way back flies the same segments
+    public synchronized void add(K key, Route route) {
+        remove(key);
+        Set<Long> cells = new HashSet<>();
+        for (int move = 0; move < route.getMoveCount(); move++) {
+            double startLng = route.lngAt(move), startLat = route.latAt(move);
+            double endLng = route.lngAt(move + 1), endLat = route.latAt(move + 1);
+            for (long column = cellOf(Math.min(startLng, endLng)); column <= cellOf(Math.max(startLng, endLng)); column++) {
+                for (long row = cellOf(Math.min(startLat, endLat)); row <= cellOf(Math.max(startLat, endLat)); row++) {
+                    cells.add(pack(column, row));
+                }
+            }
+        }
+        long[] routeCells = new long[cells.size()];
+        int i = 0;
+        for (long cell : cells) {
+            routeCells[i++] = cell;
+            routesByCell.computeIfAbsent(cell, c -> new HashSet<>()).add(key);
+        }
+        cellsByRoute.put(key, routeCells);
+    }
+
+    // Remove a route from every cell it was registered in
+    public synchronized void remove(K key) {
+        long[] routeCells = cellsByRoute.remove(key);
+        if (routeCells == null) {
+            return;
+        }
+        for (long cell : routeCells) {
+            Set<K> routes = routesByCell.get(cell);
+            routes.remove(key);
+            if (routes.isEmpty()) {
+                routesByCell.remove(cell);
+            }
+        }
+    }
+
+    // Check if a route has been registered
+    public synchronized boolean contains(K key) {
+        return cellsByRoute.containsKey(key);
+    }
+
+    // Find the routes with a move in a grid cell overlapping the given box
+    public synchronized Set<K> routesNear(double minLng, double minLat, double maxLng, double maxLat) {
+        Set<K> routes = new HashSet<>();
+        for (long column = cellOf(minLng); column <= cellOf(maxLng); column++) {
+            for (long row = cellOf(minLat); row <= cellOf(maxLat); row++) {
+                Set<K> cellRoutes = routesByCell.get(pack(column, row));
+                if (cellRoutes != null) {
+                    routes.addAll(cellRoutes);
+                }
+            }
+        }
+        return routes;
+    }
+
+    // Get the number of routes registered
+    public synchronized int size() {
+        return cellsByRoute.size();
+    }
+
+    // Find the grid cell index holding a coordinate
+    private static long cellOf(double coordinate) {
+        return (long) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    // Pack a column and row into one cell key
+    private static long pack(long column, long row) {
+        return (column << 32) ^ (row & 0xFFFFFFFFL);
+    }
+}
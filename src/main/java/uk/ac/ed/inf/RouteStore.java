@@ -0,0 +1,174 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Define a persistent store of planned paths that is reused across runs while the zone geometry stays the same
+// Routes are saved in their compact form, a start point plus one byte per move, and rebuilt by replaying the moves
+// Each route is saved with the name and revision of the planner that planned it, so a changed engine never serves its old paths
+public class RouteStore {
+    private static final int MAGIC = 0x50445253; // "PDRS"
+    private static final int VERSION = 3;
+
+    private final Path file;
+    private final long geometryHash;
+    private final Map<Key, byte[]> routes = new ConcurrentHashMap<>();
+    private final int loadedCount;
+    private volatile boolean modified = false;
+
+    // A stored path is identified by the name and revision of its planner and its start and target coordinates
+    private record Key(String planner, int revision, double startLng, double startLat, double targetLng, double targetLat) {
+    }
+
+    private RouteStore(Path file, long geometryHash) throws IOException {
+        this.file = file;
+        this.geometryHash = geometryHash;
+        this.loadedCount = load();
+    }
+
+    // Open the store saved at the given file, discarding its contents if they were planned for different geometry
+    public static RouteStore open(Path file, NamedRegion[] noFlyZones, NamedRegion centralArea) throws IOException {
+        return new RouteStore(file, geometryHash(noFlyZones, centralArea));
+    }
+
+    // Open the store at the same file for new geometry, such as when the no-fly zones change during a run
+    // The file only holds paths for one geometry, so the paths of the old geometry are dropped rather than saved over those of the new one
+    public RouteStore reopen(NamedRegion[] noFlyZones, NamedRegion centralArea) throws IOException {
+        return open(file, noFlyZones, centralArea);
+    }
+
+    // Find a stored route from start to target, or return null if there is none
+    public Route find(PlannerMode planner, LngLat start, LngLat target) {
+        byte[] angleIndexes = routes.get(new Key(planner.name(), planner.getRevision(), start.lng(), start.lat(), target.lng(), target.lat()));
+        return angleIndexes == null ? null : new Route(start, angleIndexes);
+    }
+
+    // Remember a route calculated by a path engine towards the given target
+    public void put(PlannerMode planner, LngLat target, Route route) {
+        LngLat start = route.getStart();
+        routes.put(new Key(planner.name(), planner.getRevision(), start.lng(), start.lat(), target.lng(), target.lat()), route.copyAngleIndexes());
+        modified = true;
+    }
+
+    // Get the number of paths read from the file when the store was opened
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    // Get the number of paths currently held by the store
+    public int size() {
+        return routes.size();
+    }
+
+    // Write the store back to its file if any path was added, replacing the old file atomically
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, "routes", ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(geometryHash);
+            output.writeInt(routes.size());
+            for (Map.Entry<Key, byte[]> entry : routes.entrySet()) {
+                Key key = entry.getKey();
+                output.writeUTF(key.planner());
+                output.writeInt(key.revision());
+                output.writeDouble(key.startLng());
+                output.writeDouble(key.startLat());
+                output.writeDouble(key.targetLng());
+                output.writeDouble(key.targetLat());
+                output.writeInt(entry.getValue().length);
+                output.write(entry.getValue());
+            }
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        modified = false;
+    }
+
+    // Read the stored paths through a memory-mapped buffer, skipping files of another format or geometry
+    // and dropping paths of planners that no longer exist or have been revised since
+    private int load() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != geometryHash) {
+                return 0;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(name);
+                Key key = new Key(new String(name, StandardCharsets.UTF_8), buffer.getInt(),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+                byte[] angleIndexes = new byte[buffer.getInt()];
+                buffer.get(angleIndexes);
+                if (isCurrent(key)) {
+                    routes.put(key, angleIndexes);
+                }
+            }
+            // Dropped paths are removed from the file on the next save
+            modified = routes.size() != count;
+            return routes.size();
+        } catch (RuntimeException e) {
+            // A truncated or corrupt file is treated as empty and will be overwritten on the next save
+            routes.clear();
+            return 0;
+        }
+    }
+
+    // Check if a stored path was planned by the current revision of a planner that still exists
+    private static boolean isCurrent(Key key) {
+        for (PlannerMode planner : PlannerMode.values()) {
+            if (planner.name().equals(key.planner())) {
+                return planner.getRevision() == key.revision();
+            }
+        }
+        return false;
+    }
+
+    // Hash the names and vertices of the no-fly zones and the central area into a 64-bit fingerprint
+    static long geometryHash(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<NamedRegion> regions = new ArrayList<>(List.of(noFlyZones));
+            regions.add(centralArea);
+            ByteBuffer coordinates = ByteBuffer.allocate(16);
+            for (NamedRegion region : regions) {
+                digest.update(region.name().getBytes(StandardCharsets.UTF_8));
+                for (LngLat vertex : region.vertices()) {
+                    coordinates.clear();
+                    coordinates.putDouble(vertex.lng()).putDouble(vertex.lat());
+                    digest.update(coordinates.array());
+                }
+                digest.update((byte) 0);
+            }
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Define a validator that checks a complete list of drone movements against the flight rules in one pass
+public class RouteValidator {
+    // Allowed difference between a move's length and DRONE_MOVE_DISTANCE, absorbing floating-point error
+    static final double MOVE_LENGTH_TOLERANCE = 1e-12;
+
+    private final RegionIndex regionIndex;
+
+    // A single broken rule, identified by the index of the offending move in the validated list
+    public record Violation(int moveIndex, String orderNumber, String reason) {
+    }
+
+    // Constructor to validate against the given no-fly zones and central area
+    public RouteValidator(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        this(new RegionIndex(noFlyZones, centralArea));
+    }
+
+    // Constructor to validate against an already built region index
+    public RouteValidator(RegionIndex regionIndex) {
+        this.regionIndex = regionIndex;
+    }
+
+    // Check every move and return the violations found, in move order; an empty list means the route is legal
+    public List<Violation> validate(List<Movement> moves) {
+        List<Violation> violations = new ArrayList<>();
+        Movement previous = null;
+        boolean previousEndInCentralArea = false;
+        boolean hasEnteredCentralArea = false;
+
+        for (int i = 0; i < moves.size(); i++) {
+            Movement move = moves.get(i);
+            LngLat start = move.getStart();
+            LngLat end = move.getEnd();
+            boolean isNewOrder = previous == null || !Objects.equals(previous.getOrderNumber(), move.getOrderNumber());
+            boolean startInCentralArea = previous != null && previous.getEnd().equals(start)
+                    ? previousEndInCentralArea : regionIndex.isInCentralArea(start);
+            boolean endInCentralArea = regionIndex.isInCentralArea(end);
+            if (isNewOrder) {
+                hasEnteredCentralArea = false;
+            }
+
+            if (previous != null && !previous.getEnd().equals(start)) {
+                violations.add(new Violation(i, move.getOrderNumber(), "Move does not start where the previous move ended"));
+            }
+            if (move.getAngle() == 999) {
+                if (!start.equals(end)) {
+                    violations.add(new Violation(i, move.getOrderNumber(), "Hover move changes position"));
+                }
+            } else {
+                if (move.getAngle() < 0 || move.getAngle() >= 360 || move.getAngle() % GeometryKernel.ANGLE_STEP != 0) {
+                    violations.add(new Violation(i, move.getOrderNumber(), "Angle " + move.getAngle() + " is not one of the 16 compass directions"));
+                }
+                double length = GeometryKernel.distance(start.lng(), start.lat(), end.lng(), end.lat());
+                if (Math.abs(length - DRONE_MOVE_DISTANCE) > MOVE_LENGTH_TOLERANCE) {
+                    violations.add(new Violation(i, move.getOrderNumber(), "Move length " + length + " is not DRONE_MOVE_DISTANCE"));
+                }
+                if (regionIndex.crossesNoFlyZone(start.lng(), start.lat(), end.lng(), end.lat())) {
+                    violations.add(new Violation(i, move.getOrderNumber(), "Move enters or crosses a no-fly zone"));
+                }
+                // Once the drone has brought the order back into the central area it may not leave it again
+                if (!startInCentralArea && endInCentralArea) {
+                    hasEnteredCentralArea = true;
+                } else if (startInCentralArea && !endInCentralArea && hasEnteredCentralArea) {
+                    violations.add(new Violation(i, move.getOrderNumber(), "Move leaves the central area after re-entering it"));
+                }
+            }
+            previous = move;
+            previousEndInCentralArea = endInCentralArea;
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.ed.inf;
+
+// Define a holder for the work done while calculating a single route, or the totals over many routes
+public class SearchStatistics {
+    private long nodesExpanded = 0;
+    private long visitedProbes = 0;
+    private long visitedHits = 0;
+    private long moveChecks = 0;
+    private long polygonTests = 0;
+
+    // Count one more position expanded by the path engine
+    public void recordNodeExpanded() {
+        nodesExpanded++;
+    }
+
+    // Add the lookups made against a visited set during the search
+    public void recordVisitedSet(VisitedPositionSet visited) {
+        visitedProbes += visited.getProbeCount();
+        visitedHits += visited.getHitCount();
+    }
+
+    // Count one more move checked against the no-fly zones, and the exact polygon tests the check needed
+    public void recordMoveCheck(int polygonTestCount) {
+        moveChecks++;
+        polygonTests += polygonTestCount;
+    }
+
+    // Add the work recorded by another search, so one holder keeps the totals over many searches
+    public void add(SearchStatistics search) {
+        nodesExpanded += search.nodesExpanded;
+        visitedProbes += search.visitedProbes;
+        visitedHits += search.visitedHits;
+        moveChecks += search.moveChecks;
+        polygonTests += search.polygonTests;
+    }
+
+    // Get the number of positions expanded while searching
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    // Get the number of membership lookups made against the visited set
+    public long getVisitedProbes() {
+        return visitedProbes;
+    }
+
+    // Get the number of visited-set lookups that found the position already present
+    public long getVisitedHits() {
+        return visitedHits;
+    }
+
+    // Get the number of moves checked against the no-fly zones
+    public long getMoveChecks() {
+        return moveChecks;
+    }
+
+    // Get the number of exact polygon tests the move checks needed
+    public long getPolygonTests() {
+        return polygonTests;
+    }
+}
@@ -9,14 +9,159 @@ import uk.ac.ed.inf.ilp.data.Pizza;
 import uk.ac.ed.inf.ilp.data.Restaurant;
 import uk.ac.ed.inf.ilp.interfaces.OrderValidation;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 // Define a class ValidateOrder that implements the OrderValidation interface
+// The restaurants' menus and opening days are indexed once, so validating an order costs O(pizzas) rather than a scan of every menu
 public class ValidateOrder implements OrderValidation {
+    // Index over the restaurants' menus, rebuilt only when orders are validated against a different restaurant array
+    private volatile MenuIndex menuIndex;
+    // The first day on which a card is expired, cached for each MM/YY expiry at index month * 100 + year, so the cache
+    // never outgrows its 10,000 entries; threads may race to fill an entry, which is harmless since they store equal dates
+    private final LocalDate[] firstExpiredDays = new LocalDate[100 * 100];
+
+    // Instrumentation of order validation
+    private static final Metrics.Counter ORDERS_VALIDATED = Metrics.global().counter("validation.orders");
+    private static final Metrics.Histogram VALIDATE_ALL_NANOS = Metrics.global().histogram("validation.validateAll.nanos");
+
+    // Bounds on the number of orders validated as one task by validateAll
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int STREAM_CHUNK_SIZE = 4096;
+
+    // Constructor to create a validator that indexes the restaurants it is first given
+    public ValidateOrder() {
+    }
+
+    // Constructor to create a validator with the restaurants' menus indexed up front
+    public ValidateOrder(Restaurant[] restaurants) {
+        this.menuIndex = new MenuIndex(restaurants);
+    }
+
     // Implement the validateOrder method from the OrderValidation interface
     @Override
     public Order validateOrder(Order order, Restaurant[] restaurants) {
+        checkOrder(order, restaurants, indexFor(restaurants));
+        return order;
+    }
+
+    // Validate many orders in parallel chunks, in the same way as validateOrder
+    // The valid orders are returned in their original order and the counts are exact, however the chunks were scheduled
+    public ValidationSummary validateAll(Order[] orders, Restaurant[] restaurants) {
+        long start = System.nanoTime();
+        MenuIndex index = indexFor(restaurants);
+        int chunkSize = chunkSize(orders.length);
+        List<Callable<ChunkResult>> tasks = new ArrayList<>();
+        for (int from = 0; from < orders.length; from += chunkSize) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(orders.length, from + chunkSize);
+            tasks.add(() -> validateChunk(orders, chunkStart, chunkEnd, restaurants, index));
+        }
+        ValidationSummary summary = mergeChunks(ForkJoinPool.commonPool().invokeAll(tasks));
+        VALIDATE_ALL_NANOS.recordNanosSince(start);
+        return summary;
+    }
+
+    // Validate a stream of orders in parallel, handing each chunk to the pool as soon as it has been read from the stream
+    public ValidationSummary validateAll(Stream<Order> orders, Restaurant[] restaurants) {
+        long start = System.nanoTime();
+        MenuIndex index = indexFor(restaurants);
+        List<Future<ChunkResult>> chunks = new ArrayList<>();
+        Iterator<Order> iterator = orders.iterator();
+        while (iterator.hasNext()) {
+            Order[] chunk = new Order[STREAM_CHUNK_SIZE];
+            int size = 0;
+            while (size < chunk.length && iterator.hasNext()) {
+                chunk[size++] = iterator.next();
+            }
+            int chunkEnd = size;
+            chunks.add(ForkJoinPool.commonPool().submit(() -> validateChunk(chunk, 0, chunkEnd, restaurants, index)));
+        }
+        ValidationSummary summary = mergeChunks(chunks);
+        VALIDATE_ALL_NANOS.recordNanosSince(start);
+        return summary;
+    }
+
+    // The outcome of validating a batch of orders: the valid orders in input order and how many orders got each code
+    public record ValidationSummary(List<Order> validOrders, Map<OrderValidationCode, Integer> codeCounts) {
+    }
+
+    // The outcome of one chunk, only touched by the thread that validated it until the chunks are merged
+    private record ChunkResult(int[] codeCounts, List<Order> validOrders) {
+    }
+
+    // Pick a chunk size that gives every worker several chunks to balance the load, without making chunks tiny
+    private static int chunkSize(int orderCount) {
+        int chunksWanted = 4 * ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(MIN_CHUNK_SIZE, (orderCount + chunksWanted - 1) / chunksWanted);
+    }
+
+    // Validate the orders from index from to index to, counting codes and collecting valid orders into the chunk's own lists
+    private ChunkResult validateChunk(Order[] orders, int from, int to, Restaurant[] restaurants, MenuIndex index) {
+        int[] codeCounts = new int[OrderValidationCode.values().length];
+        List<Order> validOrders = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (checkOrder(orders[i], restaurants, index) != null) {
+                validOrders.add(orders[i]);
+            }
+            // Count the code validation has just set, not the one the order arrived with
+            codeCounts[orders[i].getOrderValidationCode().ordinal()]++;
+        }
+        return new ChunkResult(codeCounts, validOrders);
+    }
+
+    // Merge the chunk results in chunk order
+    private ValidationSummary mergeChunks(List<? extends Future<ChunkResult>> chunks) {
+        int[] codeCounts = new int[OrderValidationCode.values().length];
+        List<Order> validOrders = new ArrayList<>();
+        for (Future<ChunkResult> future : chunks) {
+            ChunkResult chunk;
+            try {
+                chunk = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Order validation was interrupted.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Order validation failed.", e.getCause());
+            }
+            for (int code = 0; code < codeCounts.length; code++) {
+                codeCounts[code] += chunk.codeCounts()[code];
+            }
+            validOrders.addAll(chunk.validOrders());
+        }
+        Map<OrderValidationCode, Integer> counts = new EnumMap<>(OrderValidationCode.class);
+        for (OrderValidationCode code : OrderValidationCode.values()) {
+            if (codeCounts[code.ordinal()] > 0) {
+                counts.put(code, codeCounts[code.ordinal()]);
+            }
+        }
+        return new ValidationSummary(validOrders, Collections.unmodifiableMap(counts));
+    }
+
+    // Check an order against every rule, setting its status and validation code
+    // Returns the restaurant that serves the order if it is valid, or null otherwise
+    private Restaurant checkOrder(Order order, Restaurant[] restaurants, MenuIndex index) {
+        ORDERS_VALIDATED.increment();
         Pizza[] pizzaList = order.getPizzasInOrder(); // Get the list of pizzas in the order
         CreditCardInformation cardInfo = order.getCreditCardInformation(); // Get the credit card information
         // Check various validation conditions and set order status and validation code accordingly
@@ -25,79 +170,157 @@ public class ValidateOrder implements OrderValidation {
         if (pizzaList.length > SystemConstants.MAX_PIZZAS_PER_ORDER) {
             order.setOrderValidationCode(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
+            return null;
         }
         // Validate the CVV of the credit card
         if (!checkIsCVVValid(cardInfo.getCvv())) {
             order.setOrderValidationCode(OrderValidationCode.CVV_INVALID);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
+            return null;
         }
         // Validate the credit card number using Luhn Algorithm
         if (!checkIsCardNumberValid(cardInfo.getCreditCardNumber())) {
             order.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
+            return null;
         }
         // Check if the credit card is expired
         if (checkIsCardExpired(cardInfo.getCreditCardExpiry(), order.getOrderDate())) {
             order.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
+            return null;
         }
         // Validate the total cost of the pizzas
         if (order.getPriceTotalInPence() != totalCostOfPizzas(pizzaList)) {
             order.setOrderValidationCode(OrderValidationCode.TOTAL_INCORRECT);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
+            return null;
         }
-        // Ensure that all pizzas in the order can be fulfilled by one restaurant
-        int restaurantCount = 0;
+        // Ensure that all pizzas in the order can be fulfilled by one restaurant, looking each pizza up in the menu index
         Restaurant currentRestaurant = null;
-        for (Restaurant restaurant : restaurants) {
-            int numberOfOrderListPizzasInMenu = findNumberOfOrderListPizzasInMenu(Arrays.stream(pizzaList).toList(), Arrays.stream(restaurant.menu()).toList());
-            if (numberOfOrderListPizzasInMenu == pizzaList.length) {
-                restaurantCount++;
-                currentRestaurant = restaurant;
-            } else if (numberOfOrderListPizzasInMenu > 0) {
-                restaurantCount++;
+        boolean fromMultipleRestaurants = false;
+        boolean allPizzasSold = true;
+        if (pizzaList.length == 0) {
+            // Every menu contains all of an empty order, so it is only served when there is exactly one restaurant
+            fromMultipleRestaurants = restaurants.length > 1;
+            currentRestaurant = restaurants.length == 1 ? restaurants[0] : null;
+        }
+        for (Pizza pizza : pizzaList) {
+            List<Restaurant> sellers = index.sellersOf(pizza);
+            allPizzasSold &= !sellers.isEmpty();
+            for (Restaurant seller : sellers) {
+                if (currentRestaurant == null) {
+                    currentRestaurant = seller;
+                } else if (currentRestaurant != seller) {
+                    fromMultipleRestaurants = true;
+                }
             }
         }
         // More validations about the restaurant capabilities and working days
-        if (restaurantCount > 1) {
+        if (fromMultipleRestaurants) {
             order.setOrderValidationCode(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
-        } else if (currentRestaurant == null) {
+            return null;
+        } else if (currentRestaurant == null || !allPizzasSold) {
             order.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
-        } else if (!Arrays.stream(currentRestaurant.openingDays()).toList().contains(order.getOrderDate().getDayOfWeek())) {
+            return null;
+        } else if (!index.isOpenOn(currentRestaurant, order.getOrderDate().getDayOfWeek())) {
             order.setOrderValidationCode(OrderValidationCode.RESTAURANT_CLOSED);
             order.setOrderStatus(OrderStatus.INVALID);
-            return order;
+            return null;
         }
         // If all checks pass, the order is marked as valid but not delivered
         order.setOrderValidationCode(OrderValidationCode.NO_ERROR);
         order.setOrderStatus(OrderStatus.VALID_BUT_NOT_DELIVERED);
-        return order;
+        return currentRestaurant;
+    }
+
+    // Get the restaurant that serves an order: the first restaurant whose menu holds every pizza in the order, or null if there is none
+    // For a valid order this is the restaurant validation resolved, since each of its pizzas has that restaurant as its only seller
+    public Restaurant getRestaurant(Order order) {
+        MenuIndex index = menuIndex;
+        if (index == null) {
+            throw new IllegalStateException("No restaurants have been indexed yet.");
+        }
+        return index.firstRestaurantSelling(order.getPizzasInOrder());
+    }
+
+    // Get the menu index for a restaurant array, building it the first time the array is seen
+    private MenuIndex indexFor(Restaurant[] restaurants) {
+        MenuIndex index = menuIndex;
+        if (index == null || index.restaurants != restaurants) {
+            index = new MenuIndex(restaurants);
+            menuIndex = index;
+        }
+        return index;
+    }
+
+    // Define an index from each pizza to the restaurants selling it, with every menu and set of opening days as hash sets
+    private static final class MenuIndex {
+        private final Restaurant[] restaurants;
+        private final Map<Pizza, List<Restaurant>> sellersByPizza = new HashMap<>();
+        private final Map<Restaurant, Set<Pizza>> menus = new IdentityHashMap<>();
+        private final Map<Restaurant, Set<DayOfWeek>> openingDays = new IdentityHashMap<>();
+
+        // Constructor to index the restaurants, keeping each pizza's sellers in the restaurants' order
+        private MenuIndex(Restaurant[] restaurants) {
+            this.restaurants = restaurants;
+            for (Restaurant restaurant : restaurants) {
+                Set<Pizza> menu = new HashSet<>(Arrays.asList(restaurant.menu()));
+                menus.put(restaurant, menu);
+                for (Pizza pizza : menu) {
+                    sellersByPizza.computeIfAbsent(pizza, key -> new ArrayList<>(1)).add(restaurant);
+                }
+                Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                days.addAll(Arrays.asList(restaurant.openingDays()));
+                openingDays.put(restaurant, days);
+            }
+        }
+
+        // Get the restaurants that sell a pizza
+        private List<Restaurant> sellersOf(Pizza pizza) {
+            return sellersByPizza.getOrDefault(pizza, List.of());
+        }
+
+        // Check whether a restaurant opens on a day of the week
+        private boolean isOpenOn(Restaurant restaurant, DayOfWeek day) {
+            return openingDays.get(restaurant).contains(day);
+        }
+
+        // Find the first restaurant whose menu holds every pizza, or null if there is none
+        private Restaurant firstRestaurantSelling(Pizza[] pizzas) {
+            if (pizzas.length == 0) {
+                return restaurants.length > 0 ? restaurants[0] : null;
+            }
+            for (Restaurant candidate : sellersOf(pizzas[0])) {
+                if (menus.get(candidate).containsAll(Arrays.asList(pizzas))) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
     }
 
     // Helper methods for various checks during order validation
     // Calculate the total cost of pizzas in the order
-    private static double totalCostOfPizzas(Pizza[] pizzaList) {
-        return Arrays.stream(pizzaList).mapToDouble(Pizza::priceInPence).sum() + SystemConstants.ORDER_CHARGE_IN_PENCE;
+    private static int totalCostOfPizzas(Pizza[] pizzaList) {
+        int total = SystemConstants.ORDER_CHARGE_IN_PENCE;
+        for (Pizza pizza : pizzaList) {
+            total += pizza.priceInPence();
+        }
+        return total;
     }
 
     // Check if a CVV is valid (3 digits)
     private static boolean checkIsCVVValid(String CVV) {
-        return CVV.matches("[0-9]{3}");
+        return isDigits(CVV, 3);
     }
 
     // Validate a credit card number using Luhn Algorithm
     private static boolean checkIsCardNumberValid(String cardNumber) {
         // Implementation of Luhn Algorithm
-        if (!cardNumber.matches("[0-9]{16}")) {
+        if (!isDigits(cardNumber, 16)) {
             return false;
         }
         int digitsCount = cardNumber.length();
@@ -112,8 +335,53 @@ public class ValidateOrder implements OrderValidation {
         return (sum % 10 == 0);
     }
 
+    // Check if a string is exactly the given number of ASCII digits
+    private static boolean isDigits(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char character = value.charAt(i);
+            if (character < '0' || character > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // Check if a credit card is expired
-    private static boolean checkIsCardExpired(String cardExpiryDate, LocalDate orderDate) {
+    private boolean checkIsCardExpired(String cardExpiryDate, LocalDate orderDate) {
+        int key = expiryKey(cardExpiryDate);
+        if (key < 0) {
+            // Not in the MM/YY form, so it is parsed without being cached
+            return !orderDate.isBefore(firstExpiredDay(cardExpiryDate));
+        }
+        LocalDate firstExpiredDay = firstExpiredDays[key];
+        if (firstExpiredDay == null) {
+            firstExpiredDay = firstExpiredDay(cardExpiryDate);
+            firstExpiredDays[key] = firstExpiredDay;
+        }
+        return !orderDate.isBefore(firstExpiredDay);
+    }
+
+    // Get the cache index of an MM/YY expiry, month * 100 + year, or -1 if the expiry is not in that form
+    private static int expiryKey(String cardExpiryDate) {
+        if (cardExpiryDate.length() != 5 || cardExpiryDate.charAt(2) != '/') {
+            return -1;
+        }
+        int key = 0;
+        for (int i : new int[]{0, 1, 3, 4}) {
+            char character = cardExpiryDate.charAt(i);
+            if (character < '0' || character > '9') {
+                return -1;
+            }
+            key = key * 10 + (character - '0');
+        }
+        return key;
+    }
+
+    // Parse an MM/YY expiry into the first day of the following month, when the card stops being valid
+    private static LocalDate firstExpiredDay(String cardExpiryDate) {
         int month = Integer.parseInt(cardExpiryDate.charAt(0) + "" + cardExpiryDate.charAt(1));
         int year = Integer.parseInt(cardExpiryDate.charAt(3) + "" + cardExpiryDate.charAt(4));
         if (month > 11) {
@@ -123,7 +391,7 @@ public class ValidateOrder implements OrderValidation {
             month += 1;
         }
 
-        return !orderDate.isBefore(LocalDate.parse(String.format("20%02d-%02d-01", year, month)));
+        return LocalDate.parse(String.format("20%02d-%02d-01", year, month));
     }
 
     // Find the number of pizzas in the order that are available in the restaurant menu
@@ -0,0 +1,342 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_IS_CLOSE_DISTANCE;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Define a path engine that finds the shortest polygonal route on a visibility graph around the no-fly zones, then flies it as lattice moves
+// The graph over the inflated zone and central area corners is built once per engine, so every order and day planned with it shares the graph
+public class VisibilityGraphPathEngine implements PathEngine {
+    // Distance that the corners are pushed away from their polygon, leaving room for the lattice moves that follow a graph edge
+    static final double INFLATION = 2 * DRONE_MOVE_DISTANCE;
+    // Upper bound on how far a corner is pushed out at a sharp vertex, as a multiple of the inflation
+    static final double MAX_CORNER_SCALE = 4;
+    // Counts routes that could not be flown along the graph and were planned by the lattice search instead
+    private static final Metrics.Counter FALLBACKS = Metrics.global().counter("planner.visibilityFallbacks");
+
+    private final RegionIndex regionIndex;
+    // Lattice search used when the graph path cannot be followed with legal moves
+    private final PathEngine fallbackEngine;
+    // Corner nodes of the graph and, for each, the indexes of the corners the drone may fly to from it
+    // Corners outside the central area only lead to corners they can reach without crossing into the central area
+    private final double[] nodeLngs, nodeLats;
+    private final boolean[] nodeInCentralArea;
+    private final int[][] visibleNodes;
+    // The corners visible from the endpoints of the routes in the route cache, such as the restaurants and the delivery point,
+    // with the number of cached routes that use each endpoint, so an endpoint is only forgotten with its last route
+    private final Map<LngLat, EndpointEdges> visibleFromEndpoint = new ConcurrentHashMap<>();
+    private final Map<LngLat, Integer> endpointRoutes = new ConcurrentHashMap<>();
+
+    // A queued graph node with the length of the shortest known route to it
+    private record QueueEntry(int node, double distance) {
+    }
+
+    // The corners visible from an endpoint, and those of them whose edge to the endpoint keeps clear of the central area boundary
+    private record EndpointEdges(int[] visible, int[] visibleOutsideCentralArea) {
+    }
+
+    // Constructor to build the corner nodes and the visibility edges between them over the indexed regions
+    public VisibilityGraphPathEngine(RegionIndex regionIndex) {
+        this.regionIndex = regionIndex;
+        this.fallbackEngine = new AStarPathEngine(regionIndex);
+
+        // A shortest route only bends at the convex corners of the zones; the central area corners are added on both sides of its boundary
+        List<double[]> corners = new ArrayList<>();
+        for (NamedRegion zone : regionIndex.getNoFlyZones()) {
+            addCorners(zone.vertices(), INFLATION, true, corners);
+        }
+        addCorners(regionIndex.getCentralArea().vertices(), INFLATION, false, corners);
+        addCorners(regionIndex.getCentralArea().vertices(), -INFLATION, false, corners);
+        corners.removeIf(corner -> regionIndex.isInNoFlyZone(corner[0], corner[1]));
+
+        int n = corners.size();
+        nodeLngs = new double[n];
+        nodeLats = new double[n];
+        nodeInCentralArea = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            nodeLngs[i] = corners.get(i)[0];
+            nodeLats[i] = corners.get(i)[1];
+            nodeInCentralArea[i] = regionIndex.isInCentralArea(nodeLngs[i], nodeLats[i]);
+        }
+
+        // Test every pair of corners once; the region index grid keeps each segment test to the zones near the segment
+        List<List<Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            edges.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (!regionIndex.crossesNoFlyZone(nodeLngs[i], nodeLats[i], nodeLngs[j], nodeLats[j])) {
+                    // Once the drone has left the central area it may not enter it again, not even part way along an edge
+                    boolean crossesCentralArea = regionIndex.crossesCentralAreaBoundary(nodeLngs[i], nodeLats[i], nodeLngs[j], nodeLats[j]);
+                    if (nodeInCentralArea[i] || !crossesCentralArea) {
+                        edges.get(i).add(j);
+                    }
+                    if (nodeInCentralArea[j] || !crossesCentralArea) {
+                        edges.get(j).add(i);
+                    }
+                }
+            }
+        }
+        visibleNodes = new int[n][];
+        for (int i = 0; i < n; i++) {
+            visibleNodes[i] = edges.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // Push each corner of a polygon along its bisector so both adjacent edges are the given distance away; a negative distance pushes inwards
+    private static void addCorners(LngLat[] vertices, double distance, boolean convexOnly, List<double[]> corners) {
+        int n = vertices.length;
+        // A closed ring repeats its first vertex at the end
+        if (n > 1 && vertices[0].equals(vertices[n - 1])) {
+            n--;
+        }
+        if (n < 3) {
+            return;
+        }
+        // The sign of the shoelace area tells whether the vertices run anticlockwise (positive) or clockwise
+        double area = 0;
+        for (int i = 0; i < n; i++) {
+            LngLat a = vertices[i];
+            LngLat b = vertices[(i + 1) % n];
+            area += a.lng() * b.lat() - b.lng() * a.lat();
+        }
+        double orientation = Math.signum(area);
+        for (int i = 0; i < n; i++) {
+            LngLat previous = vertices[(i + n - 1) % n];
+            LngLat vertex = vertices[i];
+            LngLat next = vertices[(i + 1) % n];
+            double inLng = vertex.lng() - previous.lng(), inLat = vertex.lat() - previous.lat();
+            double outLng = next.lng() - vertex.lng(), outLat = next.lat() - vertex.lat();
+            double inLength = Math.hypot(inLng, inLat), outLength = Math.hypot(outLng, outLat);
+            if (inLength == 0 || outLength == 0) {
+                continue;
+            }
+            // The vertex is convex when the boundary turns the same way as the polygon winds
+            if (convexOnly && orientation * (inLng * outLat - inLat * outLng) <= 0) {
+                continue;
+            }
+            // Outward unit normals of the two edges meeting at the vertex
+            double normalLng = orientation * (inLat / inLength + outLat / outLength);
+            double normalLat = -orientation * (inLng / inLength + outLng / outLength);
+            double normalLength = Math.hypot(normalLng, normalLat);
+            if (normalLength < 1e-9) {
+                continue;
+            }
+            double scale = distance * Math.min(MAX_CORNER_SCALE, 2 / normalLength) / normalLength;
+            corners.add(new double[]{vertex.lng() + normalLng * scale, vertex.lat() + normalLat * scale});
+        }
+    }
+
+    // Calculate a path by flying the shortest visibility graph route, falling back to the lattice A* search if it cannot be flown
+    @Override
+    public List<Movement> calculatePath(LngLat location1, LngLat location2, String orderNumber, SearchStatistics statistics) {
+        List<LngLat> waypoints = findWaypoints(location1, location2, statistics);
+        if (waypoints != null) {
+            List<Movement> path = followWaypoints(location1, waypoints, orderNumber, statistics);
+            if (path != null) {
+                return path;
+            }
+        }
+        FALLBACKS.increment();
+        return fallbackEngine.calculatePath(location1, location2, orderNumber, statistics);
+    }
+
+    // Count one more cached route using each endpoint
+    @Override
+    public void retainEndpoints(LngLat startLocation, LngLat targetLocation) {
+        endpointRoutes.merge(startLocation, 1, Integer::sum);
+        endpointRoutes.merge(targetLocation, 1, Integer::sum);
+    }
+
+    // Drop the corners visible from the endpoints of an evicted route once no other cached route uses them
+    // They are tested again if a later route needs them
+    @Override
+    public void forgetEndpoints(LngLat startLocation, LngLat targetLocation) {
+        forgetEndpoint(startLocation);
+        forgetEndpoint(targetLocation);
+    }
+
+    // Count one route fewer using an endpoint, dropping its visible corners when it was the last
+    private void forgetEndpoint(LngLat endpoint) {
+        if (endpointRoutes.computeIfPresent(endpoint, (key, routes) -> routes > 1 ? routes - 1 : null) == null) {
+            visibleFromEndpoint.remove(endpoint);
+        }
+    }
+
+    // Run Dijkstra from the start to the target over the corners, returning the corners to pass and then the target, or null if unreachable
+    private List<LngLat> findWaypoints(LngLat start, LngLat target, SearchStatistics statistics) {
+        int n = nodeLngs.length;
+        int startNode = n, targetNode = n + 1;
+        boolean startInCentralArea = regionIndex.isInCentralArea(start);
+        boolean targetInCentralArea = regionIndex.isInCentralArea(target);
+        // Corners outside the central area only reach the target along an edge clear of the central area boundary
+        EndpointEdges targetEdges = visibleFrom(target, statistics);
+        boolean[] reachesTarget = new boolean[n];
+        for (int i : targetEdges.visible()) {
+            reachesTarget[i] = nodeInCentralArea[i];
+        }
+        for (int i : targetEdges.visibleOutsideCentralArea()) {
+            reachesTarget[i] = true;
+        }
+        boolean startSeesTarget = !regionIndex.crossesNoFlyZone(start.lng(), start.lat(), target.lng(), target.lat(), statistics)
+                && (startInCentralArea || !regionIndex.crossesCentralAreaBoundary(start.lng(), start.lat(), target.lng(), target.lat()));
+
+        double[] distances = new double[n + 2];
+        int[] previous = new int[n + 2];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        distances[startNode] = 0;
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>(Comparator.comparingDouble(QueueEntry::distance));
+        queue.add(new QueueEntry(startNode, 0));
+
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            int node = entry.node();
+            // Skip stale entries for nodes that were already reached through a shorter route
+            if (entry.distance() > distances[node]) {
+                continue;
+            }
+            if (node == targetNode) {
+                break;
+            }
+            statistics.recordNodeExpanded();
+            double lng = node == startNode ? start.lng() : nodeLngs[node];
+            double lat = node == startNode ? start.lat() : nodeLats[node];
+            boolean inCentralArea = node == startNode ? startInCentralArea : nodeInCentralArea[node];
+            int[] neighbours = node != startNode ? visibleNodes[node]
+                    : startInCentralArea ? visibleFrom(start, statistics).visible() : visibleFrom(start, statistics).visibleOutsideCentralArea();
+            for (int neighbour : neighbours) {
+                // Once the drone has left the central area it may not enter it again
+                if (!inCentralArea && nodeInCentralArea[neighbour]) {
+                    continue;
+                }
+                relax(node, neighbour, entry.distance() + GeometryKernel.distance(lng, lat, nodeLngs[neighbour], nodeLats[neighbour]),
+                        distances, previous, queue);
+            }
+            boolean seesTarget = node == startNode ? startSeesTarget : reachesTarget[node];
+            if (seesTarget && (inCentralArea || !targetInCentralArea)) {
+                relax(node, targetNode, entry.distance() + GeometryKernel.distance(lng, lat, target.lng(), target.lat()),
+                        distances, previous, queue);
+            }
+        }
+        if (previous[targetNode] == -1) {
+            return null;
+        }
+
+        List<LngLat> waypoints = new ArrayList<>();
+        waypoints.add(target);
+        for (int node = previous[targetNode]; node != startNode; node = previous[node]) {
+            waypoints.add(new LngLat(nodeLngs[node], nodeLats[node]));
+        }
+        Collections.reverse(waypoints);
+        return waypoints;
+    }
+
+    // Record a shorter route to a node and queue it
+    private static void relax(int from, int to, double distance, double[] distances, int[] previous, PriorityQueue<QueueEntry> queue) {
+        if (distance < distances[to]) {
+            distances[to] = distance;
+            previous[to] = from;
+            queue.add(new QueueEntry(to, distance));
+        }
+    }
+
+    // Get the corners visible from a route endpoint, testing each corner the first time the endpoint is seen
+    private EndpointEdges visibleFrom(LngLat endpoint, SearchStatistics statistics) {
+        return visibleFromEndpoint.computeIfAbsent(endpoint, key -> {
+            List<Integer> visible = new ArrayList<>();
+            List<Integer> visibleOutsideCentralArea = new ArrayList<>();
+            for (int i = 0; i < nodeLngs.length; i++) {
+                if (!regionIndex.crossesNoFlyZone(key.lng(), key.lat(), nodeLngs[i], nodeLats[i], statistics)) {
+                    visible.add(i);
+                    if (!regionIndex.crossesCentralAreaBoundary(key.lng(), key.lat(), nodeLngs[i], nodeLats[i])) {
+                        visibleOutsideCentralArea.add(i);
+                    }
+                }
+            }
+            return new EndpointEdges(visible.stream().mapToInt(Integer::intValue).toArray(),
+                    visibleOutsideCentralArea.stream().mapToInt(Integer::intValue).toArray());
+        });
+    }
+
+    // Fly towards each waypoint in turn with the legal move closest to it, returning null if the moves get stuck
+    private List<Movement> followWaypoints(LngLat start, List<LngLat> waypoints, String orderNumber, SearchStatistics statistics) {
+        // Allow twice the straight-line number of moves before deciding the graph route cannot be flown
+        double routeLength = 0;
+        LngLat from = start;
+        for (LngLat waypoint : waypoints) {
+            routeLength += GeometryKernel.distance(from.lng(), from.lat(), waypoint.lng(), waypoint.lat());
+            from = waypoint;
+        }
+        int maxMoves = (int) (2 * routeLength / DRONE_MOVE_DISTANCE) + 50;
+
+        VisitedPositionSet visited = new VisitedPositionSet(GreedyPathEngine.POSITION_EPSILON);
+        visited.add(start.lng(), start.lat());
+        boolean inCentralArea = regionIndex.isInCentralArea(start);
+        LngLat position = start;
+        List<Movement> path = new ArrayList<>();
+        for (int w = 0; w < waypoints.size(); w++) {
+            LngLat waypoint = waypoints.get(w);
+            // Corners only have to be passed within a move, while the target itself has to be reached
+            double reachDistance = w == waypoints.size() - 1 ? DRONE_IS_CLOSE_DISTANCE : DRONE_MOVE_DISTANCE;
+            while (GeometryKernel.distance(position.lng(), position.lat(), waypoint.lng(), waypoint.lat()) >= reachDistance) {
+                if (path.size() >= maxMoves) {
+                    return null;
+                }
+                int bestAngleIndex = -1;
+                double bestDistance = Double.MAX_VALUE;
+                boolean bestInCentralArea = false;
+                for (int angleIndex = 0; angleIndex < GeometryKernel.DIRECTIONS; angleIndex++) {
+                    double nextLng = GeometryKernel.nextLng(position.lng(), angleIndex);
+                    double nextLat = GeometryKernel.nextLat(position.lat(), angleIndex);
+                    double distance = GeometryKernel.distance(nextLng, nextLat, waypoint.lng(), waypoint.lat());
+                    // Only run the region checks for moves that would improve on the best one so far
+                    if (distance >= bestDistance || visited.contains(nextLng, nextLat)) {
+                        continue;
+                    }
+                    boolean isNextPositionInCentralArea = regionIndex.isInCentralArea(nextLng, nextLat);
+                    if (!inCentralArea && isNextPositionInCentralArea) {
+                        continue;
+                    }
+                    if (regionIndex.crossesNoFlyZone(position.lng(), position.lat(), nextLng, nextLat, statistics)) {
+                        continue;
+                    }
+                    bestAngleIndex = angleIndex;
+                    bestDistance = distance;
+                    bestInCentralArea = isNextPositionInCentralArea;
+                }
+                if (bestAngleIndex < 0) {
+                    return null;
+                }
+                LngLat nextPosition = new LngLat(GeometryKernel.nextLng(position.lng(), bestAngleIndex),
+                        GeometryKernel.nextLat(position.lat(), bestAngleIndex));
+                path.add(new Movement(position, bestAngleIndex * GeometryKernel.ANGLE_STEP, nextPosition, orderNumber));
+                visited.add(nextPosition.lng(), nextPosition.lat());
+                position = nextPosition;
+                inCentralArea = bestInCentralArea;
+            }
+        }
+        path.add(new Movement(position, 999, position, orderNumber));
+        return path;
+    }
+
+    // Get the number of corner nodes in the graph
+    public int getNodeCount() {
+        return nodeLngs.length;
+    }
+
+    // Get the number of visibility edges between corner nodes
+    public int getEdgeCount() {
+        int edges = 0;
+        for (int[] neighbours : visibleNodes) {
+            edges += neighbours.length;
+        }
+        return edges / 2;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.ac.ed.inf;
+
+import java.util.Arrays;
+
+// Define an open-addressing hash set of positions, keyed on longitude and latitude snapped to a fixed grid
+// Keys are built from the low 32 bits of each cell index, so positions only alias when they are 2^32 cells apart,
+// which is far beyond the extent of a single route
+public class VisitedPositionSet {
+    // Marks an unused slot; a real key equal to this value is tracked separately
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final double cellSize;
+    private long[] keys;
+    private int size = 0;
+    private boolean containsEmptyKey = false;
+    // Number of membership lookups and how many of them found the position already present
+    private long probeCount = 0;
+    private long hitCount = 0;
+
+    // Constructor to create a set whose positions are considered equal when they share a cell of the given size
+    public VisitedPositionSet(double cellSize) {
+        this.cellSize = cellSize;
+        this.keys = new long[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Check if the cell containing the position has been added
+    public boolean contains(double lng, double lat) {
+        probeCount++;
+        long key = key(lng, lat);
+        boolean found = key == EMPTY ? containsEmptyKey : keys[slotOf(key, keys)] == key;
+        if (found) {
+            hitCount++;
+        }
+        return found;
+    }
+
+    // Add the cell containing the position, returning false if it was already present
+    public boolean add(double lng, double lat) {
+        probeCount++;
+        long key = key(lng, lat);
+        if (key == EMPTY) {
+            if (containsEmptyKey) {
+                hitCount++;
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf(key, keys);
+        if (keys[slot] == key) {
+            hitCount++;
+            return false;
+        }
+        keys[slot] = key;
+        // Keep the load factor at or below one half so linear probing stays short
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    // Get the number of positions in the set
+    public int size() {
+        return size;
+    }
+
+    // Get the number of membership lookups made against this set
+    public long getProbeCount() {
+        return probeCount;
+    }
+
+    // Get the number of lookups that found the position already in the set
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    // Snap a position onto the grid and pack the two cell indexes into one key
+    private long key(double lng, double lat) {
+        long lngCell = Math.round(lng / cellSize);
+        long latCell = Math.round(lat / cellSize);
+        return (lngCell << 32) ^ (latCell & 0xFFFFFFFFL);
+    }
+
+    // Find the slot holding the key, or the empty slot where it would be inserted
+    private static int slotOf(long key, long[] table) {
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Spread the key bits so nearby cells land in different slots
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    // Double the table and re-insert every key
+    private void grow() {
+        long[] newKeys = new long[keys.length * 2];
+        Arrays.fill(newKeys, EMPTY);
+        for (long key : keys) {
+            if (key != EMPTY) {
+                newKeys[slotOf(key, newKeys)] = key;
+            }
+        }
+        keys = newKeys;
+    }
+}
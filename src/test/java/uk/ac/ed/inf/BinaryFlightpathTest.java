@@ -0,0 +1,131 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Test that binary flightpath files read back as the moves written, converting to the same JSON as OutputWriter,
+// and that damaged files are refused
+public class BinaryFlightpathTest {
+    private static final LngLat APPLETON_TOWER = new LngLat(-3.186874, 55.944494);
+
+    @TempDir
+    Path directory;
+
+    // Fly a round trip for each order number from the Appleton Tower, hovering at each end, as PathManager plans them
+    private static List<Movement> roundTrips(String... orderNumbers) {
+        List<Movement> moves = new ArrayList<>();
+        LngLat position = APPLETON_TOWER;
+        for (int trip = 0; trip < orderNumbers.length; trip++) {
+            List<Movement> outbound = new ArrayList<>();
+            for (int step = 0; step < 20 + trip; step++) {
+                int angleIndex = (trip * 5 + step / 4) % GeometryKernel.DIRECTIONS;
+                LngLat next = new LngLat(GeometryKernel.nextLng(position.lng(), angleIndex), GeometryKernel.nextLat(position.lat(), angleIndex));
+                outbound.add(new Movement(position, angleIndex * GeometryKernel.ANGLE_STEP, next, orderNumbers[trip]));
+                position = next;
+            }
+            moves.addAll(outbound);
+            moves.add(new Movement(position, 999, position, orderNumbers[trip]));
+            for (int i = outbound.size() - 1; i >= 0; i--) {
+                Movement move = outbound.get(i);
+                LngLat back = move.getStart();
+                moves.add(new Movement(position, (move.getAngle() + 180) % 360, back, orderNumbers[trip]));
+                position = back;
+            }
+            moves.add(new Movement(position, 999, position, orderNumbers[trip]));
+        }
+        return moves;
+    }
+
+    // Write the moves as a binary file, convert it to JSON and check the JSON matches the file OutputWriter writes for the moves
+    private void assertConvertsLikeOutputWriter(List<Movement> moves) throws IOException {
+        Path binaryFile = directory.resolve("flightpath.bin");
+        Path convertedFile = directory.resolve("converted.json");
+        Path expectedFile = directory.resolve("expected.json");
+        BinaryFlightpath.write(moves, binaryFile);
+        BinaryFlightpath.convertToJson(binaryFile, convertedFile);
+        OutputWriter.writeFlightpath(moves, expectedFile);
+        assertArrayEquals(Files.readAllBytes(expectedFile), Files.readAllBytes(convertedFile));
+    }
+
+    @Test
+    public void continuousMovesConvertLikeOutputWriter() throws IOException {
+        assertConvertsLikeOutputWriter(roundTrips("19514FE0", "7B3A3F21", "19514FE0", "5C9D2A44"));
+    }
+
+    @Test
+    public void discontinuousMovesConvertLikeOutputWriter() throws IOException {
+        // Two separately planned paths whose ends do not meet, as written when each order is flown on its own
+        List<Movement> moves = new ArrayList<>(roundTrips("19514FE0"));
+        LngLat elsewhere = new LngLat(-3.1912, 55.9455);
+        moves.add(new Movement(elsewhere, 90, new LngLat(elsewhere.lng(), elsewhere.lat() + 0.00015), "7B3A3F21"));
+        moves.add(new Movement(elsewhere, 999, elsewhere, null));
+        assertConvertsLikeOutputWriter(moves);
+    }
+
+    @Test
+    public void emptyFlightpathConvertsLikeOutputWriter() throws IOException {
+        assertConvertsLikeOutputWriter(List.of());
+    }
+
+    @Test
+    public void readsBackEveryColumn() throws IOException {
+        List<Movement> moves = roundTrips("19514FE0", null, "7B3A3F21");
+        Path binaryFile = directory.resolve("flightpath.bin");
+        BinaryFlightpath.write(moves, binaryFile);
+        BinaryFlightpath flightpath = BinaryFlightpath.open(binaryFile);
+
+        assertEquals(moves.size(), flightpath.size());
+        for (int i = 0; i < moves.size(); i++) {
+            Movement move = moves.get(i);
+            assertEquals(move.getStart(), flightpath.get(i).getStart(), "start of move " + i);
+            assertEquals(move.getEnd(), flightpath.get(i).getEnd(), "end of move " + i);
+            assertEquals(move.getAngle(), flightpath.getAngle(i), "angle of move " + i);
+            assertEquals(move.getOrderNumber(), flightpath.getOrderNumber(i), "order number of move " + i);
+        }
+    }
+
+    @Test
+    public void refusesTruncatedFiles() throws IOException {
+        Path binaryFile = directory.resolve("flightpath.bin");
+        BinaryFlightpath.write(roundTrips("19514FE0", "7B3A3F21"), binaryFile);
+        long size = Files.size(binaryFile);
+        // Cut the file inside the last column, inside the first column, and inside the dictionary
+        for (long length : new long[]{size - 1, size / 2, 30}) {
+            try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+            assertThrows(IllegalArgumentException.class, () -> BinaryFlightpath.open(binaryFile), "file cut to " + length + " bytes");
+        }
+    }
+
+    @Test
+    public void refusesHeadersThatDoNotFitTheFile() throws IOException {
+        Path binaryFile = directory.resolve("flightpath.bin");
+        BinaryFlightpath.write(roundTrips("19514FE0"), binaryFile);
+        // Overwrite the move count, the dictionary size and the dictionary length in turn with values the file cannot hold
+        int[][] corruptions = {{12, Integer.MAX_VALUE}, {12, -1}, {16, Integer.MAX_VALUE}, {20, Integer.MAX_VALUE}, {20, -8}, {24, 1000}};
+        byte[] original = Files.readAllBytes(binaryFile);
+        for (int[] corruption : corruptions) {
+            byte[] bytes = original.clone();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+            Files.write(binaryFile, bytes);
+            assertThrows(IllegalArgumentException.class, () -> BinaryFlightpath.open(binaryFile),
+                    "header int at " + corruption[0] + " set to " + corruption[1]);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Test the moves FlightPath builds for single and batched legs against the round trips of their routes
+public class FlightPathTest {
+    private static final LngLat APPLETON_TOWER = new LngLat(-3.186874, 55.944494);
+    // A route out from the Appleton Tower, ending with the hover at the restaurant as the path engines plan it
+    private static final Route ROUTE = new Route(APPLETON_TOWER, new byte[]{0, 0, 2, 4, 4, 3, Route.HOVER});
+    private static final int OUTBOUND_MOVES = ROUTE.getMoveCount();
+    private static final LngLat RESTAURANT = new LngLat(ROUTE.lngAt(OUTBOUND_MOVES), ROUTE.latAt(OUTBOUND_MOVES));
+
+    // Check that two moves go between the same positions at the same angle for the same order
+    private static void assertSameMove(Movement expected, Movement actual, String message) {
+        assertEquals(expected.getStart(), actual.getStart(), message + ": start");
+        assertEquals(expected.getEnd(), actual.getEnd(), message + ": end");
+        assertEquals(expected.getAngle(), actual.getAngle(), message + ": angle");
+        assertEquals(expected.getOrderNumber(), actual.getOrderNumber(), message + ": order number");
+    }
+
+    // Check that a move is a hover at a position for an order
+    private static void assertHover(LngLat position, String orderNumber, Movement move, String message) {
+        assertSameMove(new Movement(position, 999, position, orderNumber), move, message);
+    }
+
+    @Test
+    public void singleOrderLegIsTheRoundTripOfItsRoute() {
+        FlightPath.Leg leg = new FlightPath.Leg(ROUTE, "19514FE0");
+        assertEquals(ROUTE.getRoundTripMoveCount(), leg.getMoveCount());
+        for (int move = 0; move < leg.getMoveCount(); move++) {
+            assertSameMove(ROUTE.roundTripMove(move, "19514FE0"), leg.move(move), "move " + move);
+        }
+    }
+
+    @Test
+    public void batchedLegCoversTheFourRanges() {
+        List<String> orderNumbers = List.of("19514FE0", "7B3A3F21", "5C9D2A44");
+        int extraHovers = orderNumbers.size() - 1;
+        FlightPath.Leg leg = new FlightPath.Leg(ROUTE, orderNumbers);
+        assertEquals(ROUTE.getRoundTripMoveCount() + 2 * extraHovers, leg.getMoveCount());
+
+        int move = 0;
+        // The outbound moves, ending with the first order's pickup hover, are flown for the first order
+        for (; move < OUTBOUND_MOVES; move++) {
+            assertSameMove(ROUTE.roundTripMove(move, orderNumbers.get(0)), leg.move(move), "outbound move " + move);
+        }
+        assertHover(RESTAURANT, orderNumbers.get(0), leg.move(OUTBOUND_MOVES - 1), "first pickup");
+        // Then one more pickup hover at the restaurant for each other order
+        for (int order = 1; order < orderNumbers.size(); order++, move++) {
+            assertHover(RESTAURANT, orderNumbers.get(order), leg.move(move), "pickup of order " + order);
+        }
+        // Then the way back, flown for the first order
+        for (int back = OUTBOUND_MOVES; back < 2 * OUTBOUND_MOVES - 1; back++, move++) {
+            assertSameMove(ROUTE.roundTripMove(back, orderNumbers.get(0)), leg.move(move), "way back move " + back);
+        }
+        // Then one delivery hover at the Appleton Tower for every order, the first order's included
+        for (String orderNumber : orderNumbers) {
+            assertHover(APPLETON_TOWER, orderNumber, leg.move(move), "delivery of " + orderNumber);
+            move++;
+        }
+        assertEquals(leg.getMoveCount(), move);
+    }
+
+    @Test
+    public void batchedLegFliesTheFirstOrdersRoundTrip() {
+        // Leaving out the hovers of the other orders must give exactly the first order's own round trip
+        FlightPath.Leg batched = new FlightPath.Leg(ROUTE, List.of("19514FE0", "7B3A3F21"));
+        FlightPath.Leg single = new FlightPath.Leg(ROUTE, "19514FE0");
+        List<Movement> firstOrderMoves = new ArrayList<>();
+        for (int move = 0; move < batched.getMoveCount(); move++) {
+            if ("19514FE0".equals(batched.move(move).getOrderNumber())) {
+                firstOrderMoves.add(batched.move(move));
+            }
+        }
+        assertEquals(single.getMoveCount(), firstOrderMoves.size());
+        for (int move = 0; move < single.getMoveCount(); move++) {
+            assertSameMove(single.move(move), firstOrderMoves.get(move), "move " + move);
+        }
+    }
+
+    @Test
+    public void flightPathAgreesWithItsLegsOrderByOrder() {
+        List<FlightPath.Leg> legs = List.of(
+                new FlightPath.Leg(ROUTE, "19514FE0"),
+                new FlightPath.Leg(ROUTE, List.of("7B3A3F21", "5C9D2A44", "0A1B2C3D")),
+                new FlightPath.Leg(new Route(APPLETON_TOWER, new byte[0]), "EMPTY000"),
+                new FlightPath.Leg(ROUTE, "6E7F8091"));
+        FlightPath flightPath = new FlightPath(legs);
+
+        // Indexed and iterated moves agree, and each leg's moves follow the previous leg's
+        List<Movement> iterated = new ArrayList<>();
+        flightPath.forEach(iterated::add);
+        assertEquals(flightPath.size(), iterated.size());
+        int index = 0;
+        for (FlightPath.Leg leg : legs) {
+            for (int move = 0; move < leg.getMoveCount(); move++, index++) {
+                assertSameMove(leg.move(move), flightPath.get(index), "move " + index);
+                assertSameMove(leg.move(move), iterated.get(index), "iterated move " + index);
+            }
+        }
+        assertEquals(flightPath.size(), index);
+
+        // Every delivered order has one pickup hover at the restaurant followed by one delivery hover at the Appleton Tower
+        for (FlightPath.Leg leg : legs) {
+            if (leg.getMoveCount() == 0) {
+                continue;
+            }
+            for (String orderNumber : leg.orderNumbers()) {
+                List<Movement> hovers = new ArrayList<>();
+                for (Movement move : flightPath) {
+                    if (orderNumber.equals(move.getOrderNumber()) && move.getAngle() == 999) {
+                        hovers.add(move);
+                    }
+                }
+                assertEquals(2, hovers.size(), "hovers of " + orderNumber);
+                assertHover(RESTAURANT, orderNumber, hovers.get(0), "pickup of " + orderNumber);
+                assertHover(APPLETON_TOWER, orderNumber, hovers.get(1), "delivery of " + orderNumber);
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> flightPath.get(flightPath.size()));
+    }
+}
@@ -0,0 +1,74 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Test the point-in-polygon rule shared by GeometryKernel, PolygonIndex and LongitudeAndLatitudeHandler
+// where the eastward ray from a point runs through a vertex or along a horizontal edge
+public class GeometryKernelTest {
+    // Grid units of 0.001 degrees near the Appleton Tower, so points and vertices on one grid row have the same latitude exactly
+    private static double lng(double x) {
+        return -3.19 + x * 0.001;
+    }
+
+    private static double lat(double y) {
+        return 55.943 + y * 0.001;
+    }
+
+    // Build a region from alternating grid x and y coordinates
+    private static NamedRegion region(String name, double... coordinates) {
+        LngLat[] vertices = new LngLat[coordinates.length / 2];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = new LngLat(lng(coordinates[2 * i]), lat(coordinates[2 * i + 1]));
+        }
+        return new NamedRegion(name, vertices);
+    }
+
+    // Check that every implementation of the rule gives the expected answer for the grid point
+    private static void assertInside(boolean expected, NamedRegion region, double x, double y) {
+        LngLat point = new LngLat(lng(x), lat(y));
+        LngLat[] vertices = region.vertices();
+        double[] lngs = new double[vertices.length], lats = new double[vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            lngs[i] = vertices[i].lng();
+            lats[i] = vertices[i].lat();
+        }
+        String message = "(" + x + ", " + y + ") in " + region.name();
+        assertEquals(expected, GeometryKernel.pointInPolygon(lngs, lats, vertices.length, point.lng(), point.lat()), "GeometryKernel " + message);
+        assertEquals(expected, new PolygonIndex(region).contains(point.lng(), point.lat()), "PolygonIndex " + message);
+        assertEquals(expected, new LongitudeAndLatitudeHandler().isInRegion(point, region), "LongitudeAndLatitudeHandler " + message);
+    }
+
+    @Test
+    public void rayThroughAVertexCountsItOnce() {
+        // A triangle pointing east, whose east vertex has one neighbour above the ray and one below
+        NamedRegion triangle = region("Triangle", 0, 0, 4, 1, 0, 2);
+        assertInside(false, triangle, -1, 1);
+        assertInside(true, triangle, 1, 1);
+        assertInside(false, triangle, 5, 1);
+        // A diamond, whose top and bottom vertices have both neighbours on the same side of the ray
+        NamedRegion diamond = region("Diamond", 2, 0, 4, 2, 2, 4, 0, 2);
+        assertInside(false, diamond, -1, 0);
+        assertInside(false, diamond, -1, 4);
+        assertInside(false, diamond, -1, 2);
+        assertInside(true, diamond, 1, 2);
+    }
+
+    @Test
+    public void pointBesideAHorizontalEdgeIsDecidedByTheOtherEdges() {
+        // A U shape whose notch floor is a horizontal edge from (3, 1) to (1, 1)
+        NamedRegion u = region("U", 0, 0, 4, 0, 4, 3, 3, 3, 3, 1, 1, 1, 1, 3, 0, 3);
+        assertInside(true, u, 0.5, 1);
+        assertInside(true, u, 3.5, 1);
+        assertInside(false, u, -1, 1);
+        assertInside(false, u, 5, 1);
+        assertInside(false, u, 2, 2);
+        // Points on the horizontal edge, and its vertices, are still on the polygon
+        assertInside(true, u, 2, 1);
+        assertInside(true, u, 1, 1);
+        assertInside(true, u, 3, 1);
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Pizza;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Test that the streaming writers give the same documents as the org.json and Gson helper methods in App
+public class OutputWriterTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final LngLat APPLETON_TOWER = new LngLat(-3.186874, 55.944494);
+
+    // Fly one move in each direction from the Appleton Tower and hover, then add a move with whole-number coordinates and no order
+    private static List<Movement> moves() {
+        List<Movement> moves = new ArrayList<>();
+        LngLat position = APPLETON_TOWER;
+        for (int angleIndex = 0; angleIndex < GeometryKernel.DIRECTIONS; angleIndex++) {
+            LngLat next = new LngLat(GeometryKernel.nextLng(position.lng(), angleIndex), GeometryKernel.nextLat(position.lat(), angleIndex));
+            moves.add(new Movement(position, angleIndex * GeometryKernel.ANGLE_STEP, next, "19514FE0"));
+            position = next;
+        }
+        moves.add(new Movement(position, 999, position, "19514FE0"));
+        moves.add(new Movement(new LngLat(-3, 56), 0, new LngLat(-3.00015, 56), null));
+        return moves;
+    }
+
+    // Run a writer into a string
+    private interface Writer {
+        void write(ByteArrayOutputStream output) throws IOException;
+    }
+
+    private static String written(Writer writer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void deliveriesHaveTheSameValues() throws IOException {
+        Order[] orders = {
+                new Order("19514FE0", LocalDate.of(2023, 9, 1), OrderStatus.DELIVERED, OrderValidationCode.NO_ERROR, 2500, new Pizza[0], null),
+                new Order("7B3A3F21", LocalDate.of(2023, 9, 1), OrderStatus.INVALID, OrderValidationCode.CVV_INVALID, 1100, new Pizza[0], null)};
+        assertEquals(MAPPER.readTree(App.deliveryJson(orders)), MAPPER.readTree(written(output -> OutputWriter.writeDeliveries(orders, output))));
+    }
+
+    @Test
+    public void flightpathHasTheSameValuesAndNumbers() throws IOException {
+        List<Movement> moves = moves();
+        String expected = App.flightpathJson(moves);
+        String actual = written(output -> OutputWriter.writeFlightpath(moves, output));
+        // Comparing the trees also compares the number types, so a whole number written as 999.0 would not match 999
+        assertEquals(MAPPER.readTree(expected), MAPPER.readTree(actual));
+        for (String number : new String[]{"\"angle\":0,", "\"angle\":999,", "\"angle\":22.5,", "\"fromLongitude\":-3,", "\"toLatitude\":56}"}) {
+            assertTrue(actual.contains(number), "No " + number + " in " + actual);
+        }
+    }
+
+    @Test
+    public void geoJsonIsTheSameDocument() throws IOException {
+        List<Movement> moves = moves();
+        assertEquals(App.geoJson(moves), written(output -> OutputWriter.writeGeoJson(moves, output)));
+    }
+}
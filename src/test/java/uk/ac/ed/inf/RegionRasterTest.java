@@ -0,0 +1,210 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.CENTRAL_REGION_NAME;
+import static uk.ac.ed.inf.ilp.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+// Test that the raster's cell classes and clear boxes never disagree with the exact polygon tests,
+// with most attention on the points and moves on and next to the polygons' vertices and edges
+public class RegionRasterTest {
+    private static final double CELL_SIZE = 2 * DRONE_MOVE_DISTANCE;
+    // Distances from a vertex or an edge at which points are sampled, from rounding error up to a few cells
+    private static final double[] OFFSETS = {0, 1e-15, 1e-12, 1e-10, 1e-9, 2e-9, 1e-7, DRONE_MOVE_DISTANCE / 2, DRONE_MOVE_DISTANCE, CELL_SIZE, 3 * CELL_SIZE};
+
+    private static final NamedRegion CENTRAL_AREA = region(CENTRAL_REGION_NAME,
+            -3.192473, 55.946233, -3.192473, 55.942617, -3.184319, 55.942617, -3.184319, 55.946233);
+    private static final NamedRegion GEORGE_SQUARE = region("George Square Area",
+            -3.190578818321228, 55.94402412577528, -3.1899887323379517, 55.94284650540911, -3.187097311019897, 55.94328811724263,
+            -3.187682032585144, 55.944477740393744, -3.190578818321228, 55.94402412577528);
+    private static final NamedRegion BRISTO_SQUARE = region("Bristo Square Open Area",
+            -3.189543485641479, 55.94552313663306, -3.189382553100586, 55.94553214854692, -3.189259171485901, 55.94544803726933,
+            -3.1892001628875732, 55.94533688994374, -3.189194798469543, 55.94519570234043, -3.189135789871216, 55.94511759833873,
+            -3.188138008117676, 55.9452738061846, -3.1885510683059692, 55.946105902745614, -3.1895381212234497, 55.94555918427592,
+            -3.189543485641479, 55.94552313663306);
+    // A thin sliver with a sharp vertex, lying across the central area boundary
+    private static final NamedRegion SLIVER = region("Sliver",
+            -3.18500, 55.94100, -3.18380, 55.94700, -3.18390, 55.94100);
+
+    // Build a region from alternating longitudes and latitudes
+    private static NamedRegion region(String name, double... coordinates) {
+        LngLat[] vertices = new LngLat[coordinates.length / 2];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = new LngLat(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+        return new NamedRegion(name, vertices);
+    }
+
+    // Build a square zone of the given half width around a point
+    private static NamedRegion square(String name, double lng, double lat, double halfWidth) {
+        return region(name, lng - halfWidth, lat - halfWidth, lng + halfWidth, lat - halfWidth, lng + halfWidth, lat + halfWidth, lng - halfWidth, lat + halfWidth);
+    }
+
+    // Sample points on and around every vertex and edge of the regions, plus random points over their bounding box
+    private static List<LngLat> samplePoints(NamedRegion[] regions, int randomPoints, long seed) {
+        List<LngLat> points = new ArrayList<>();
+        double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE, minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        for (NamedRegion region : regions) {
+            LngLat[] vertices = region.vertices();
+            for (int i = 0; i < vertices.length; i++) {
+                LngLat a = vertices[i], b = vertices[(i + 1) % vertices.length];
+                minLng = Math.min(minLng, a.lng());
+                maxLng = Math.max(maxLng, a.lng());
+                minLat = Math.min(minLat, a.lat());
+                maxLat = Math.max(maxLat, a.lat());
+                // Around the vertex in the eight compass directions
+                for (double offset : OFFSETS) {
+                    for (int direction = 0; direction < 8; direction++) {
+                        double angle = direction * Math.PI / 4;
+                        points.add(new LngLat(a.lng() + offset * Math.cos(angle), a.lat() + offset * Math.sin(angle)));
+                    }
+                }
+                // Along the edge, and on either side of it along its normal
+                double length = Math.hypot(b.lng() - a.lng(), b.lat() - a.lat());
+                if (length == 0) {
+                    continue;
+                }
+                double normalLng = -(b.lat() - a.lat()) / length, normalLat = (b.lng() - a.lng()) / length;
+                for (double fraction : new double[]{0.001, 0.25, 0.5, 0.77, 0.999}) {
+                    double lng = a.lng() + fraction * (b.lng() - a.lng()), lat = a.lat() + fraction * (b.lat() - a.lat());
+                    for (double offset : OFFSETS) {
+                        points.add(new LngLat(lng + offset * normalLng, lat + offset * normalLat));
+                        points.add(new LngLat(lng - offset * normalLng, lat - offset * normalLat));
+                    }
+                }
+            }
+        }
+        Random random = new Random(seed);
+        double margin = 2 * CELL_SIZE;
+        for (int i = 0; i < randomPoints; i++) {
+            points.add(new LngLat(minLng - margin + random.nextDouble() * (maxLng - minLng + 2 * margin),
+                    minLat - margin + random.nextDouble() * (maxLat - minLat + 2 * margin)));
+        }
+        return points;
+    }
+
+    // Check if any of the zones contains a point
+    private static boolean inAnyZone(PolygonIndex[] zones, double lng, double lat) {
+        for (PolygonIndex zone : zones) {
+            if (zone.contains(lng, lat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Check if a move touches or ends inside any of the zones, testing every zone exactly
+    private static boolean crossesAnyZone(PolygonIndex[] zones, double startLng, double startLat, double endLng, double endLat) {
+        for (PolygonIndex zone : zones) {
+            if (zone.intersectsSegment(startLng, startLat, endLng, endLat) || zone.contains(endLng, endLat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Compare the raster and the region index built over the regions with the exact tests, at every sampled point and every move from it
+    // Returns the number of point classes the raster settled without the exact tests
+    private static int assertAgreesWithExactTests(NamedRegion centralRegion, NamedRegion[] zoneRegions, RegionRaster raster, List<LngLat> points) {
+        PolygonIndex centralArea = new PolygonIndex(centralRegion);
+        PolygonIndex[] zones = new PolygonIndex[zoneRegions.length];
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = new PolygonIndex(zoneRegions[i]);
+        }
+        RegionIndex regionIndex = new RegionIndex(zoneRegions, centralRegion);
+        int settled = 0;
+        for (LngLat point : points) {
+            double lng = point.lng(), lat = point.lat();
+            boolean inCentralArea = centralArea.contains(lng, lat);
+            boolean inZone = inAnyZone(zones, lng, lat);
+
+            byte centralClass = raster.centralAreaClass(lng, lat);
+            if (centralClass != RegionRaster.MIXED) {
+                assertEquals(inCentralArea, centralClass == RegionRaster.INSIDE, "central area class of " + point);
+                settled++;
+            }
+            byte noFlyClass = raster.noFlyClass(lng, lat);
+            if (noFlyClass != RegionRaster.MIXED) {
+                assertEquals(inZone, noFlyClass == RegionRaster.INSIDE, "no-fly class of " + point);
+                settled++;
+            }
+            assertEquals(inCentralArea, regionIndex.isInCentralArea(lng, lat), "central area test of " + point);
+            assertEquals(inZone, regionIndex.isInNoFlyZone(lng, lat), "no-fly test of " + point);
+
+            for (int angleIndex = 0; angleIndex < GeometryKernel.DIRECTIONS; angleIndex++) {
+                double nextLng = GeometryKernel.nextLng(lng, angleIndex), nextLat = GeometryKernel.nextLat(lat, angleIndex);
+                boolean crosses = crossesAnyZone(zones, lng, lat, nextLng, nextLat);
+                if (raster.isClearOfNoFlyZones(Math.min(lng, nextLng), Math.min(lat, nextLat), Math.max(lng, nextLng), Math.max(lat, nextLat))) {
+                    assertFalse(crosses, "move " + angleIndex + " from " + point + " was cleared by the raster but crosses a zone");
+                }
+                assertEquals(crosses, regionIndex.crossesNoFlyZone(lng, lat, nextLng, nextLat), "move " + angleIndex + " from " + point);
+            }
+        }
+        return settled;
+    }
+
+    @Test
+    public void agreesWithExactTestsAroundTheCampusZones() {
+        NamedRegion[] zones = {GEORGE_SQUARE, BRISTO_SQUARE, SLIVER};
+        NamedRegion[] regions = {CENTRAL_AREA, GEORGE_SQUARE, BRISTO_SQUARE, SLIVER};
+        RegionRaster raster = new RegionRaster(new PolygonIndex(CENTRAL_AREA), new PolygonIndex[]{
+                new PolygonIndex(GEORGE_SQUARE), new PolygonIndex(BRISTO_SQUARE), new PolygonIndex(SLIVER)}, CELL_SIZE);
+        assertEquals(CELL_SIZE, raster.getCellSize());
+
+        List<LngLat> points = samplePoints(regions, 20_000, 25);
+        int settled = assertAgreesWithExactTests(CENTRAL_AREA, zones, raster, points);
+        // Most random points are far from every edge, so the raster must settle most classes without the exact tests
+        assertTrue(settled > points.size(), "The raster only settled " + settled + " of " + 2 * points.size() + " point classes.");
+    }
+
+    @Test
+    public void agreesWithExactTestsWhenTheCellsAreDoubled() {
+        // Zones spread over two degrees would need far more than MAX_CELLS cells of the requested size, so the cells are grown
+        List<NamedRegion> zoneList = new ArrayList<>(List.of(GEORGE_SQUARE, BRISTO_SQUARE));
+        zoneList.add(square("Far west", -4.2, 55.1, 0.002));
+        zoneList.add(square("Far east", -2.2, 56.9, 0.0005));
+        zoneList.add(region("Far triangle", -3.0, 55.5, -2.9, 55.52, -2.95, 55.4));
+        NamedRegion[] zones = zoneList.toArray(new NamedRegion[0]);
+        PolygonIndex[] zoneIndexes = new PolygonIndex[zones.length];
+        for (int i = 0; i < zones.length; i++) {
+            zoneIndexes[i] = new PolygonIndex(zones[i]);
+        }
+        RegionRaster raster = new RegionRaster(new PolygonIndex(CENTRAL_AREA), zoneIndexes, CELL_SIZE);
+        assertTrue(raster.getCellSize() > CELL_SIZE, "The cells were not grown: " + raster.getCellSize());
+        // The cells only ever double, so the grown size is the requested size times a power of two
+        double growth = raster.getCellSize() / CELL_SIZE;
+        assertEquals(Math.rint(growth), growth, 1e-9);
+        assertEquals(1, Long.bitCount(Math.round(growth)));
+
+        // Random points over the whole two degrees would rarely land near a zone, so sample around each zone instead
+        List<LngLat> points = new ArrayList<>();
+        long seed = 250;
+        for (NamedRegion zone : zones) {
+            points.addAll(samplePoints(new NamedRegion[]{zone}, 2_000, seed++));
+        }
+        points.addAll(samplePoints(new NamedRegion[]{CENTRAL_AREA}, 2_000, seed));
+        assertAgreesWithExactTests(CENTRAL_AREA, zones, raster, points);
+    }
+
+    @Test
+    public void pointsOutsideTheRasterAreOutside() {
+        RegionRaster raster = new RegionRaster(new PolygonIndex(CENTRAL_AREA), new PolygonIndex[]{new PolygonIndex(GEORGE_SQUARE)}, CELL_SIZE);
+        for (LngLat point : List.of(new LngLat(0, 0), new LngLat(-3.5, 55.944), new LngLat(-3.188, 56.5), new LngLat(Double.NaN, 55.944))) {
+            assertEquals(RegionRaster.OUTSIDE, raster.centralAreaClass(point.lng(), point.lat()), "central area class of " + point);
+            assertEquals(RegionRaster.OUTSIDE, raster.noFlyClass(point.lng(), point.lat()), "no-fly class of " + point);
+        }
+        // A box off the raster cannot be vouched for, so it is never reported clear
+        assertFalse(raster.isClearOfNoFlyZones(0, 0, 0.0001, 0.0001));
+        // Nor is a box spanning more than a few cells, even where every cell is clear
+        assertFalse(raster.isClearOfNoFlyZones(-3.1920, 55.9455, -3.1910, 55.9460));
+    }
+}
@@ -0,0 +1,151 @@
+package uk.ac.ed.inf;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Test the timeouts, retries and backoff of RestClient against a stub server on a local port
+public class RestClientTest {
+    private HttpServer server;
+
+    // Start a stub server whose /isAlive endpoint answers each request with the next of the given status codes,
+    // repeating the last one, and a body of "true" with status 200; the attempts made are counted into the given counter
+    private RestClient stubClient(AtomicInteger attempts, int maxAttempts, Duration initialBackoff, int... statusCodes) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/isAlive", exchange -> {
+            int attempt = attempts.getAndIncrement();
+            int status = statusCodes[Math.min(attempt, statusCodes.length - 1)];
+            byte[] body = (status == 200 ? "true" : "busy").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        return new RestClient("http://localhost:" + server.getAddress().getPort(), Duration.ofSeconds(5), maxAttempts, initialBackoff);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void retriesServerErrorsUntilASuccess() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RestClient client = stubClient(attempts, 4, Duration.ofMillis(10), 503, 500, 200);
+        assertEquals("true", RestClient.await(client.isAlive()));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void retriesTooManyRequests() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RestClient client = stubClient(attempts, 4, Duration.ofMillis(10), 429, 200);
+        assertEquals("true", RestClient.await(client.isAlive()));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RestClient client = stubClient(attempts, 4, Duration.ofMillis(10), 404);
+        RestClient.ResponseStatusException exception = assertThrows(RestClient.ResponseStatusException.class, () -> RestClient.await(client.isAlive()));
+        assertEquals(404, exception.getStatusCode());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void givesUpAfterTheLastAttempt() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RestClient client = stubClient(attempts, 3, Duration.ofMillis(10), 503);
+        RestClient.ResponseStatusException exception = assertThrows(RestClient.ResponseStatusException.class, () -> RestClient.await(client.isAlive()));
+        assertEquals(503, exception.getStatusCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void doublesTheBackoffBeforeEachRetry() throws Exception {
+        List<Long> arrivals = new ArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/isAlive", exchange -> {
+            synchronized (arrivals) {
+                arrivals.add(System.nanoTime());
+            }
+            exchange.sendResponseHeaders(attempts.getAndIncrement() < 3 ? 503 : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        RestClient client = new RestClient("http://localhost:" + server.getAddress().getPort(), Duration.ofSeconds(5), 4, Duration.ofMillis(100));
+        RestClient.await(client.isAlive());
+
+        assertEquals(4, arrivals.size());
+        // The waits before the retries are 100, 200 and 400 ms
+        for (int retry = 1; retry < arrivals.size(); retry++) {
+            long waitMillis = (arrivals.get(retry) - arrivals.get(retry - 1)) / 1_000_000;
+            long backoffMillis = 100L << (retry - 1);
+            assertTrue(waitMillis >= backoffMillis, "Retry " + retry + " came after " + waitMillis + " ms, before its " + backoffMillis + " ms backoff");
+        }
+    }
+
+    @Test
+    public void timesOutABodyThatStopsArriving() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/restaurants", exchange -> {
+            // Send the headers and the start of the body at once, then stall for longer than the client waits
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream output = exchange.getResponseBody();
+            output.write("[{\"name\":".getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        RestClient client = new RestClient("http://localhost:" + server.getAddress().getPort(), Duration.ofMillis(300), 1, Duration.ofMillis(10));
+
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> RestClient.await(client.getRestaurants()));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis < 2000, "The stalled body was only abandoned after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void doesNotRetryABodyThatCannotBeParsed() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/restaurants", exchange -> {
+            attempts.incrementAndGet();
+            byte[] body = "not json".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        RestClient client = new RestClient("http://localhost:" + server.getAddress().getPort(), Duration.ofSeconds(5), 4, Duration.ofMillis(10));
+
+        assertThrows(IOException.class, () -> RestClient.await(client.getRestaurants()));
+        assertEquals(1, attempts.get());
+    }
+}
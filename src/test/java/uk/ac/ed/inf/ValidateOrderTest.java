@@ -0,0 +1,139 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Test that validateAll sets every order's code as validateOrder would and counts the codes it set
+public class ValidateOrderTest {
+    private static final Pizza MARGARITA = new Pizza("Margarita", 1000);
+    private static final Pizza CALZONE = new Pizza("Calzone", 1400);
+    private static final Pizza MEAT_LOVER = new Pizza("Meat Lover", 1400);
+    private static final Restaurant[] RESTAURANTS = {
+            new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                    new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.TUESDAY}, new Pizza[]{MARGARITA, CALZONE}),
+            new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376),
+                    new DayOfWeek[]{DayOfWeek.WEDNESDAY}, new Pizza[]{MEAT_LOVER})};
+    // A Monday, when only the first restaurant is open
+    private static final LocalDate MONDAY = LocalDate.of(2023, 9, 4);
+    private static final String CARD_NUMBER = "4111111111111111";
+
+    // Build an order on the Monday that is valid except for the fault picked by kind, returning the code it should get
+    private static OrderValidationCode addOrder(List<Order> orders, int kind) {
+        Pizza[] pizzas = {MARGARITA, CALZONE};
+        String cardNumber = CARD_NUMBER, expiry = "12/30", cvv = "123";
+        int extraPence = 0;
+        OrderValidationCode expected;
+        switch (kind) {
+            case 0 -> expected = OrderValidationCode.NO_ERROR;
+            case 1 -> {
+                cvv = "12";
+                expected = OrderValidationCode.CVV_INVALID;
+            }
+            case 2 -> {
+                cardNumber = "4111111111111112";
+                expected = OrderValidationCode.CARD_NUMBER_INVALID;
+            }
+            case 3 -> {
+                expiry = "08/23";
+                expected = OrderValidationCode.EXPIRY_DATE_INVALID;
+            }
+            case 4 -> {
+                extraPence = 1;
+                expected = OrderValidationCode.TOTAL_INCORRECT;
+            }
+            case 5 -> {
+                pizzas = new Pizza[]{MARGARITA, new Pizza("Hawaiian", 1200)};
+                expected = OrderValidationCode.PIZZA_NOT_DEFINED;
+            }
+            case 6 -> {
+                pizzas = new Pizza[]{MARGARITA, MEAT_LOVER};
+                expected = OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS;
+            }
+            case 7 -> {
+                pizzas = new Pizza[]{MEAT_LOVER};
+                expected = OrderValidationCode.RESTAURANT_CLOSED;
+            }
+            default -> {
+                pizzas = new Pizza[SystemConstants.MAX_PIZZAS_PER_ORDER + 1];
+                Arrays.fill(pizzas, MARGARITA);
+                expected = OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED;
+            }
+        }
+        int total = SystemConstants.ORDER_CHARGE_IN_PENCE + extraPence;
+        for (Pizza pizza : pizzas) {
+            total += pizza.priceInPence();
+        }
+        orders.add(new Order(String.format("%08X", orders.size()), MONDAY, total, pizzas,
+                new CreditCardInformation(cardNumber, expiry, cvv)));
+        return expected;
+    }
+
+    // Check a summary of the orders against the codes they were built to get
+    private static void assertSummary(List<Order> orders, List<OrderValidationCode> expectedCodes, ValidateOrder.ValidationSummary summary) {
+        Map<OrderValidationCode, Integer> expectedCounts = new EnumMap<>(OrderValidationCode.class);
+        List<Order> expectedValid = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(expectedCodes.get(i), orders.get(i).getOrderValidationCode(), "code of order " + i);
+            expectedCounts.merge(expectedCodes.get(i), 1, Integer::sum);
+            if (expectedCodes.get(i) == OrderValidationCode.NO_ERROR) {
+                assertEquals(OrderStatus.VALID_BUT_NOT_DELIVERED, orders.get(i).getOrderStatus(), "status of order " + i);
+                expectedValid.add(orders.get(i));
+            } else {
+                assertEquals(OrderStatus.INVALID, orders.get(i).getOrderStatus(), "status of order " + i);
+            }
+        }
+        assertEquals(expectedCounts, summary.codeCounts());
+        assertEquals(expectedValid, summary.validOrders());
+    }
+
+    @Test
+    public void validateAllCountsTheCodesItSets() {
+        // Enough orders, unevenly mixed, to be split over several chunks of each variant of validateAll
+        List<Order> orders = new ArrayList<>();
+        List<OrderValidationCode> expectedCodes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            expectedCodes.add(addOrder(orders, i % 3 == 0 ? 0 : i % 9));
+        }
+        ValidateOrder validator = new ValidateOrder();
+        assertSummary(orders, expectedCodes, validator.validateAll(orders.toArray(new Order[0]), RESTAURANTS));
+
+        // Orders straight from the REST service arrive with an undefined code, which the summary must not count
+        List<Order> fresh = new ArrayList<>();
+        for (Order order : orders) {
+            fresh.add(new Order(order.getOrderNo(), order.getOrderDate(), OrderStatus.UNDEFINED, OrderValidationCode.UNDEFINED,
+                    order.getPriceTotalInPence(), order.getPizzasInOrder(), order.getCreditCardInformation()));
+        }
+        assertSummary(fresh, expectedCodes, validator.validateAll(fresh.stream(), RESTAURANTS));
+    }
+
+    @Test
+    public void validateAllAgreesWithValidateOrder() {
+        List<Order> orders = new ArrayList<>();
+        for (int kind = 0; kind < 9; kind++) {
+            addOrder(orders, kind);
+        }
+        ValidateOrder validator = new ValidateOrder();
+        List<OrderValidationCode> singleCodes = new ArrayList<>();
+        for (Order order : orders) {
+            singleCodes.add(validator.validateOrder(order, RESTAURANTS).getOrderValidationCode());
+        }
+        assertSummary(orders, singleCodes, validator.validateAll(orders.toArray(new Order[0]), RESTAURANTS));
+    }
+}